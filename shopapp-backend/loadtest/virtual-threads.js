@@ -0,0 +1,55 @@
+// Load test so sánh thông lượng khi bật/tắt virtual thread (app.virtual-threads.enabled)
+// Chạy với k6 (https://k6.io):
+//   k6 run -e BASE_URL=http://localhost:8088 -e VUS=400 loadtest/virtual-threads.js
+//   k6 run -e BASE_URL=http://localhost:8088 -e VUS=400 -e PHONE=0123456789 -e PASSWORD=123456 loadtest/virtual-threads.js
+// Mỗi lần chạy in ra http_reqs (req/s) và http_req_duration (p95, p99).
+// Chạy một lần với VIRTUAL_THREADS_ENABLED=false và một lần với true (Java 21), cùng DB_POOL_SIZE/REDIS_POOL_SIZE.
+// Endpoint danh sách sản phẩm dùng keyword ngẫu nhiên để đi qua MySQL thay vì chỉ đọc cache.
+import http from 'k6/http';
+import { check } from 'k6';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8088';
+const API = `${BASE_URL}/api/v1`;
+const VUS = parseInt(__ENV.VUS || '400');
+
+export const options = {
+    scenarios: {
+        io_bound: {
+            executor: 'ramping-vus',
+            startVUs: 0,
+            stages: [
+                { duration: '30s', target: VUS },
+                { duration: '2m', target: VUS },
+                { duration: '15s', target: 0 },
+            ],
+        },
+    },
+    thresholds: {
+        http_req_failed: ['rate<0.01'],
+    },
+};
+
+export function setup() {
+    if (!__ENV.PHONE) {
+        return {};
+    }
+    const res = http.post(`${API}/users/login`,
+        JSON.stringify({ phone_number: __ENV.PHONE, password: __ENV.PASSWORD }),
+        { headers: { 'Content-Type': 'application/json' } });
+    return { token: res.json('token') };
+}
+
+export default function (data) {
+    const keyword = `sp${Math.floor(Math.random() * 1000)}`;
+    const products = http.get(`${API}/products?keyword=${keyword}&page=0&limit=10`);
+    check(products, { 'products 200': (r) => r.status === 200 });
+
+    const cursor = http.get(`${API}/products/cursor?after_id=${Math.floor(Math.random() * 100000)}&limit=20`);
+    check(cursor, { 'cursor 200': (r) => r.status === 200 });
+
+    if (data.token) {
+        const details = http.post(`${API}/users/details`, null,
+            { headers: { Authorization: `Bearer ${data.token}` } });
+        check(details, { 'details 200': (r) => r.status === 200 });
+    }
+}
@@ -1,18 +1,19 @@
 package com.project.shopapp.components;
 
 import com.project.shopapp.exceptions.InvalidParamException;
-import com.project.shopapp.models.Token;
-import com.project.shopapp.repositories.TokenRepository;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.io.Encoders;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
 
 import java.security.Key;
 import java.security.SecureRandom;
@@ -27,7 +28,19 @@ public class JwtTokenUtils {
     @Value("${jwt.secretKey}")
     private String secretKey;
     private static final Logger logger = LoggerFactory.getLogger(JwtTokenUtils.class);
-    private final TokenRepository tokenRepository;
+    // Request attribute holding the claims already verified for the current request
+    private static final String VERIFIED_TOKEN_ATTRIBUTE = JwtTokenUtils.class.getName() + ".verifiedToken";
+    private Key signInKey;
+    private JwtParser jwtParser;
+
+    @PostConstruct
+    void init() {
+        //decode the secret and build the (thread-safe) parser once, not on every call
+        signInKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(secretKey));
+        jwtParser = Jwts.parserBuilder()
+                .setSigningKey(signInKey)
+                .build();
+    }
     public String generateToken(com.project.shopapp.models.User user) throws Exception{
         //properties => claims
         Map<String, Object> claims = new HashMap<>();
@@ -49,9 +62,8 @@ public class JwtTokenUtils {
         }
     }
     private Key getSignInKey() {
-        byte[] bytes = Decoders.BASE64.decode(secretKey);
         //Keys.hmacShaKeyFor(Decoders.BASE64.decode("TaqlmGv1iEDMRiFp/pHuID1+T84IABfuA0xXh4GhiUI="));
-        return Keys.hmacShaKeyFor(bytes);
+        return signInKey;
     }
     private String generateSecretKey() {
         SecureRandom random = new SecureRandom();
@@ -60,12 +72,21 @@ public class JwtTokenUtils {
         String secretKey = Encoders.BASE64.encode(keyBytes);
         return secretKey;
     }
-    private Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSignInKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+    //verify the signature once per request, later calls with the same token reuse the claims
+    public Claims extractAllClaims(String token) {
+        RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+        if (requestAttributes != null
+                && requestAttributes.getAttribute(VERIFIED_TOKEN_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST)
+                        instanceof VerifiedToken verifiedToken
+                && verifiedToken.token().equals(token)) {
+            return verifiedToken.claims();
+        }
+        Claims claims = jwtParser.parseClaimsJws(token).getBody();
+        if (requestAttributes != null) {
+            requestAttributes.setAttribute(VERIFIED_TOKEN_ATTRIBUTE,
+                    new VerifiedToken(token, claims), RequestAttributes.SCOPE_REQUEST);
+        }
+        return claims;
     }
     public  <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
         final Claims claims = this.extractAllClaims(token);
@@ -81,13 +102,10 @@ public class JwtTokenUtils {
     }
     public boolean validateToken(String token, UserDetails userDetails) {
         try {
-            String phoneNumber = extractPhoneNumber(token);
-            Token existingToken = tokenRepository.findByToken(token);
-            if(existingToken == null || existingToken.isRevoked() == true) {
-                return false;
-            }
+            Claims claims = extractAllClaims(token);
+            String phoneNumber = claims.getSubject();
             return (phoneNumber.equals(userDetails.getUsername()))
-                    && !isTokenExpired(token);
+                    && !claims.getExpiration().before(new Date());
         } catch (MalformedJwtException e) {
             logger.error("Invalid JWT token: {}", e.getMessage());
         } catch (ExpiredJwtException e) {
@@ -100,4 +118,7 @@ public class JwtTokenUtils {
 
         return false;
     }
+
+    private record VerifiedToken(String token, Claims claims) {
+    }
 }
@@ -0,0 +1,45 @@
+package com.project.shopapp.components;
+
+import com.project.shopapp.exceptions.ServiceBusyException;
+import com.project.shopapp.utils.MessageKeys;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+@Component
+@RequiredArgsConstructor
+public class PasswordHasher {
+    /**
+     * Chạy các thao tác bcrypt (kiểm tra, mã hóa mật khẩu) trên pool có giới hạn,
+     * để đợt đăng nhập dồn dập không chiếm hết CPU của các request khác.
+     * Pool và hàng đợi đầy thì từ chối ngay (ServiceBusyException => 503) thay vì xếp hàng vô hạn.
+     * Thao tác đã được nhận vào pool luôn chạy đến hết: bcrypt không dừng khi thread bị interrupt,
+     * nên không dùng timeout/cancel. Thời gian chờ được giới hạn bởi queue-capacity
+     */
+    private final AsyncTaskExecutor passwordHashingExecutor;
+    private final LocalizationUtils localizationUtils;
+
+    public <T> T execute(Callable<T> task) throws Exception {
+        Future<T> future;
+        try {
+            future = passwordHashingExecutor.submit(task);
+        } catch (TaskRejectedException e) {
+            throw new ServiceBusyException(
+                    localizationUtils.getLocalizedMessage(MessageKeys.TOO_MANY_LOGIN_REQUESTS));
+        }
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            // Trả lại đúng exception của thao tác (vd: BadCredentialsException)
+            if (e.getCause() instanceof Exception cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
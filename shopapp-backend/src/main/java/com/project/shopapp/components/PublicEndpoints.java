@@ -0,0 +1,81 @@
+package com.project.shopapp.components;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.util.Pair;
+import org.springframework.http.server.PathContainer;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+import org.springframework.stereotype.Component;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Các endpoint không cần JWT token.
+ * Danh sách được biên dịch một lần lúc khởi động thành PathPattern, nhóm theo HTTP method,
+ * để JwtTokenFilter bỏ qua kiểm tra token. Quyền truy cập vẫn do các rule của WebSecurityConfig quyết định
+ */
+@Component
+public class PublicEndpoints implements RequestMatcher {
+    @Value("${api.prefix}")
+    private String apiPrefix;
+    // HTTP method => pattern đã biên dịch
+    private final Map<String, List<PathPattern>> patternsByMethod = new HashMap<>();
+
+    @PostConstruct
+    void init() {
+        final List<Pair<String, String>> bypassTokens = Arrays.asList(
+                // Healthcheck request, no JWT token required
+                Pair.of(String.format("%s/healthcheck/health", apiPrefix), "GET"),
+                Pair.of(String.format("%s/actuator/**", apiPrefix), "GET"),
+
+                Pair.of(String.format("%s/roles/**", apiPrefix), "GET"),
+                Pair.of(String.format("%s/comments/**", apiPrefix), "GET"),
+                Pair.of(String.format("%s/coupons/**", apiPrefix), "GET"),
+
+                Pair.of(String.format("%s/products/**", apiPrefix), "GET"),
+                Pair.of(String.format("%s/categories/**", apiPrefix), "GET"),
+                Pair.of(String.format("%s/users/register", apiPrefix), "POST"),
+                Pair.of(String.format("%s/users/login", apiPrefix), "POST"),
+                Pair.of(String.format("%s/users/refreshToken", apiPrefix), "POST"),
+
+                // Swagger
+                Pair.of("/api-docs", "GET"),
+                Pair.of("/api-docs/**", "GET"),
+                Pair.of("/swagger-resources", "GET"),
+                Pair.of("/swagger-resources/**", "GET"),
+                Pair.of("/configuration/ui", "GET"),
+                Pair.of("/configuration/security", "GET"),
+                Pair.of("/swagger-ui/**", "GET"),
+                Pair.of("/swagger-ui.html", "GET"),
+                Pair.of("/swagger-ui/index.html", "GET")
+        );
+        PathPatternParser parser = new PathPatternParser();
+        for (Pair<String, String> token : bypassTokens) {
+            patternsByMethod
+                    .computeIfAbsent(token.getSecond(), method -> new ArrayList<>())
+                    .add(parser.parse(token.getFirst()));
+        }
+    }
+
+    @Override
+    public boolean matches(HttpServletRequest request) {
+        List<PathPattern> patterns = patternsByMethod.get(request.getMethod().toUpperCase());
+        if (patterns == null) {
+            return false;
+        }
+        PathContainer requestPath = PathContainer.parsePath(request.getServletPath());
+        for (PathPattern pattern : patterns) {
+            if (pattern.matches(requestPath)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
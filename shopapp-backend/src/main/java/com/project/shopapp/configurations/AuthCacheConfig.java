@@ -0,0 +1,37 @@
+package com.project.shopapp.configurations;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.project.shopapp.services.auth.AuthPrincipal;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+public class AuthCacheConfig {
+    @Value("${auth.cache.maximum-size:10000}")
+    private long maximumSize;
+
+    @Value("${auth.cache.ttl:30s}")
+    private Duration ttl;
+
+    // phone number => immutable snapshot of the authenticated user, used by JwtTokenFilter
+    @Bean
+    public Cache<String, AuthPrincipal> principalCache() {
+        return Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    // sha-256 of an access token => token exists and is not revoked
+    @Bean
+    public Cache<String, Boolean> tokenStateCache() {
+        return Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+}
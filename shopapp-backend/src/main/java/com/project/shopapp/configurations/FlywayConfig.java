@@ -1,10 +1,10 @@
 package com.project.shopapp.configurations;
 
+import com.zaxxer.hikari.HikariDataSource;
 import org.flywaydb.core.Flyway;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.jdbc.datasource.DriverManagerDataSource;
 
 import javax.sql.DataSource;
 import java.util.Arrays;
@@ -23,6 +23,13 @@ public class FlywayConfig {
     @Value("${spring.datasource.password}")
     private String datasourcePassword;
 
+    //no default here: application.yml (DB_POOL_SIZE) is the only place the pool size is set
+    @Value("${spring.datasource.hikari.maximum-pool-size}")
+    private int maximumPoolSize;
+
+    @Value("${spring.datasource.hikari.connection-timeout}")
+    private long connectionTimeout;
+
     @Bean
     public Flyway flyway() {
         Flyway flyway = Flyway.configure()
@@ -36,12 +43,15 @@ public class FlywayConfig {
         System.out.println("flywayLocations: " + Arrays.toString(flyway.getConfiguration().getLocations()));
         return flyway;
     }
+    //pooled, so the number of MySQL connections stays bounded however many request threads are waiting
     @Bean
     public DataSource dataSource() {
-        DriverManagerDataSource dataSource = new DriverManagerDataSource();
-        dataSource.setUrl(datasourceUrl);
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl(datasourceUrl);
         dataSource.setUsername(datasourceUsername);
         dataSource.setPassword(datasourcePassword);
+        dataSource.setMaximumPoolSize(maximumPoolSize);
+        dataSource.setConnectionTimeout(connectionTimeout);
         return dataSource;
     }
 }
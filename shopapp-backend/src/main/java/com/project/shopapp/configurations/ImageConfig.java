@@ -0,0 +1,47 @@
+package com.project.shopapp.configurations;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.project.shopapp.services.image.ImageFile;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.time.Duration;
+
+@Configuration
+public class ImageConfig {
+    @Value("${image.cache.maximum-size:10000}")
+    private long maximumSize;
+
+    @Value("${image.cache.ttl:10m}")
+    private Duration ttl;
+
+    @Value("${image.variants.threads:2}")
+    private int variantThreads;
+
+    @Value("${image.variants.queue-capacity:100}")
+    private int variantQueueCapacity;
+
+    // image name => path, content type, length and ETag, so a request does no stat/probe calls
+    @Bean
+    public Cache<String, ImageFile> imageFileCache() {
+        return Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    // Bounded pool for thumbnail generation, uploads beyond the queue are served from the original
+    @Bean
+    public ThreadPoolTaskExecutor imageVariantExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(variantThreads);
+        executor.setMaxPoolSize(variantThreads);
+        executor.setQueueCapacity(variantQueueCapacity);
+        executor.setThreadNamePrefix("image-variant-");
+        executor.initialize();
+        return executor;
+    }
+}
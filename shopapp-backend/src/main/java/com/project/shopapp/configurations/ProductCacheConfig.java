@@ -0,0 +1,41 @@
+package com.project.shopapp.configurations;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.project.shopapp.services.product.CachedProductList;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.time.Duration;
+
+@Configuration
+public class ProductCacheConfig {
+    @Value("${product.cache.local.maximum-size:1000}")
+    private long localCacheMaximumSize;
+
+    @Value("${product.cache.local.ttl:30s}")
+    private Duration localCacheTtl;
+
+    // In-process (L1) cache for product pages, keyed by the same query key as Redis
+    @Bean
+    public Cache<String, CachedProductList> productLocalCache() {
+        return Caffeine.newBuilder()
+                .maximumSize(localCacheMaximumSize)
+                .expireAfterWrite(localCacheTtl)
+                .build();
+    }
+
+    // Bounded pool for stale-while-revalidate refreshes, extra refreshes are dropped when it is full
+    @Bean
+    public ThreadPoolTaskExecutor productCacheRefreshExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(2);
+        executor.setMaxPoolSize(2);
+        executor.setQueueCapacity(100);
+        executor.setThreadNamePrefix("product-cache-refresh-");
+        executor.initialize();
+        return executor;
+    }
+}
@@ -0,0 +1,27 @@
+package com.project.shopapp.configurations;
+
+import com.project.shopapp.services.auth.AuthCacheService;
+import com.project.shopapp.services.product.ProductRedisService;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+@Configuration
+public class RedisListenerConfig {
+    // One subscriber connection for every in-process cache invalidated over Redis pub/sub
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(
+            RedisConnectionFactory redisConnectionFactory,
+            ProductRedisService productRedisService,
+            AuthCacheService authCacheService) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(redisConnectionFactory);
+        container.addMessageListener(productRedisService,
+                new ChannelTopic(ProductRedisService.INVALIDATION_CHANNEL));
+        container.addMessageListener(authCacheService,
+                new ChannelTopic(AuthCacheService.INVALIDATION_CHANNEL));
+        return container;
+    }
+}
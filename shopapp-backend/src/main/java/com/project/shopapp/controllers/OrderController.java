@@ -5,25 +5,40 @@ import com.project.shopapp.dtos.*;
 import com.project.shopapp.models.Order;
 import com.project.shopapp.responses.*;
 import com.project.shopapp.services.IOrderService;
+import com.project.shopapp.services.order.IOrderExportService;
 import com.project.shopapp.utils.MessageKeys;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.validation.BindingResult;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.annotation.*;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
 import java.util.List;
 
 @RestController
 @RequestMapping("${api.prefix}/orders")
 @RequiredArgsConstructor
 public class OrderController {
+    private static final int EXPORT_BUFFER_SIZE = 64 * 1024;
+    // Số đơn hàng tối đa mỗi trang của /orders/user/{user_id}/history (limit lớn hơn sẽ bị giảm xuống)
+    private static final int MAX_HISTORY_LIMIT = 100;
     private final IOrderService orderService;
     private final LocalizationUtils localizationUtils;
+    private final IOrderExportService orderExportService;
     @PostMapping("")
     @PreAuthorize("hasRole('ROLE_ADMIN') or hasRole('ROLE_USER')")
     public ResponseEntity<?> createOrder(
@@ -54,6 +69,40 @@ public class OrderController {
             return ResponseEntity.badRequest().body(e.getMessage());
         }
     }
+    //GET http://localhost:8088/api/v1/orders/user/4/history?before_id=120&limit=10
+    //Lịch sử đơn hàng theo con trỏ, mới nhất trước, không kèm user và order_details
+    //Chi tiết của từng đơn lấy khi cần qua GET /order_details/order/{orderId}
+    @GetMapping("/user/{user_id}/history")
+    //user chỉ xem được lịch sử của chính mình, admin xem được của mọi user
+    @PreAuthorize("hasRole('ROLE_ADMIN') or (hasRole('ROLE_USER') and #userId == principal.id)")
+    public ResponseEntity<?> getOrderHistory(
+            @Valid @PathVariable("user_id") Long userId,
+            @RequestParam(defaultValue = "0", name = "before_id") Long beforeId,
+            @RequestParam(defaultValue = "10") int limit
+    ) {
+        try {
+            if (limit < 1) {
+                return ResponseEntity.badRequest().body("Limit must be > 0");
+            }
+            // Giới hạn trên cũng tránh limit + 1 bị tràn số với limit = Integer.MAX_VALUE
+            limit = Math.min(limit, MAX_HISTORY_LIMIT);
+            // Lấy dư 1 đơn hàng để biết còn trang tiếp theo hay không
+            List<OrderSummaryResponse> orders = orderService.findOrderHistory(userId, beforeId, limit + 1);
+            boolean hasMore = orders.size() > limit;
+            if (hasMore) {
+                orders = orders.subList(0, limit);
+            }
+            Long nextBeforeId = hasMore ? orders.get(orders.size() - 1).getId() : null;
+            return ResponseEntity.ok(OrderHistoryResponse
+                    .builder()
+                    .orders(orders)
+                    .nextBeforeId(nextBeforeId)
+                    .hasMore(hasMore)
+                    .build());
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
     //GET http://localhost:8088/api/v1/orders/2
     @GetMapping("/{id}")
     public ResponseEntity<?> getOrder(@Valid @PathVariable("id") Long orderId) {
@@ -89,6 +138,34 @@ public class OrderController {
                 MessageKeys.DELETE_ORDER_SUCCESSFULLY, id);
         return ResponseEntity.ok().body(result);
     }
+    //GET http://localhost:8088/api/v1/orders/export?format=csv&from=2024-01-01&to=2024-12-31
+    //Export đơn hàng + chi tiết, ghi ra response trong lúc đọc từ DB (không phân trang, không load entity)
+    @GetMapping("/export")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    public void exportOrders(
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            HttpServletResponse response) throws IOException {
+        boolean ndjson = "ndjson".equalsIgnoreCase(format);
+        if (!ndjson && !"csv".equalsIgnoreCase(format)) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Format must be csv or ndjson");
+            return;
+        }
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setContentType(ndjson ? "application/x-ndjson" : "text/csv");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                .filename(ndjson ? "orders.ndjson" : "orders.csv")
+                .build()
+                .toString());
+        Writer writer = new BufferedWriter(
+                new OutputStreamWriter(response.getOutputStream(), StandardCharsets.UTF_8), EXPORT_BUFFER_SIZE);
+        if (ndjson) {
+            orderExportService.exportNdjson(from, to, writer);
+        } else {
+            orderExportService.exportCsv(from, to, writer);
+        }
+    }
     @GetMapping("/get-orders-by-keyword")
     //@PreAuthorize("hasRole('ROLE_ADMIN')")
     public ResponseEntity<OrderListResponse> getOrdersByKeyword(
@@ -102,9 +179,7 @@ public class OrderController {
                 //Sort.by("createdAt").descending()
                 Sort.by("id").ascending()
         );
-        Page<OrderResponse> orderPage = orderService
-                                        .getOrdersByKeyword(keyword, pageRequest)
-                                        .map(OrderResponse::fromOrder);
+        Page<OrderResponse> orderPage = orderService.getOrdersByKeyword(keyword, pageRequest);
         // Lấy tổng số trang
         int totalPages = orderPage.getTotalPages();
         List<OrderResponse> orderResponses = orderPage.getContent();
@@ -7,17 +7,23 @@ import com.project.shopapp.dtos.ProductDTO;
 import com.project.shopapp.dtos.ProductImageDTO;
 import com.project.shopapp.models.Product;
 import com.project.shopapp.models.ProductImage;
+import com.project.shopapp.responses.ProductCursorListResponse;
 import com.project.shopapp.responses.ProductListResponse;
 import com.project.shopapp.responses.ProductResponse;
 import com.project.shopapp.services.IProductService;
+import com.project.shopapp.services.image.IImageFileService;
+import com.project.shopapp.services.image.IImageVariantService;
+import com.project.shopapp.services.image.ImageFile;
+import com.project.shopapp.services.product.CachedProductList;
 import com.project.shopapp.services.product.IProductRedisService;
 import com.project.shopapp.utils.MessageKeys;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.core.io.UrlResource;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
@@ -33,7 +39,6 @@ import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
 import java.nio.file.Files;
-import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
 import java.util.*;
@@ -47,6 +52,11 @@ public class ProductController {
     private final IProductService productService;
     private final IProductRedisService productRedisService;
     private final LocalizationUtils localizationUtils;
+    private final IImageFileService imageFileService;
+    private final IImageVariantService imageVariantService;
+    private static final String NOT_FOUND_IMAGE = "notfound.jpeg";
+    // Số sản phẩm tối đa mỗi trang của /products/cursor (limit lớn hơn sẽ bị giảm xuống)
+    private static final int MAX_CURSOR_LIMIT = 100;
     // Lấy đường dẫn upload từ cấu hình
     @Value("${upload.dir}")
     private String uploadDir;
@@ -113,6 +123,8 @@ public class ProductController {
                                 .imageUrl(filename)
                                 .build()
                 );
+                // Tạo ảnh thu nhỏ ở background, viewImage?size=... dùng bản gốc cho đến khi tạo xong
+                imageVariantService.generateVariantsAsync(productImage);
                 productImages.add(productImage);
             }
             return ResponseEntity.ok().body(productImages);
@@ -122,30 +134,35 @@ public class ProductController {
     }
 
     @GetMapping("/images/{imageName}")
-    public ResponseEntity<?> viewImage(@PathVariable String imageName) {
-        try {
-            java.nio.file.Path imagePath = Paths.get(uploadDir, imageName);
-            UrlResource resource = new UrlResource(imagePath.toUri());
-
-            if (resource.exists() && resource.isReadable()) {
-                return ResponseEntity.ok()
-                        .contentType(MediaType.IMAGE_JPEG)
-                        .body(resource);
-            } else {
-                Path notFoundImagePath = Paths.get(uploadDir, "notfound.jpeg");
-                UrlResource notFoundResource = new UrlResource(notFoundImagePath.toUri());
-
-                if (notFoundResource.exists() && notFoundResource.isReadable()) {
-                    return ResponseEntity.ok()
-                            .contentType(MediaType.IMAGE_JPEG)
-                            .body(notFoundResource);
-                } else {
-                    return ResponseEntity.notFound().build();
-                }
+    public void viewImage(@PathVariable String imageName,
+                          @RequestParam(required = false) Integer size,
+                          HttpServletRequest request,
+                          HttpServletResponse response) throws IOException {
+        // Tên file có UUID nên nội dung không bao giờ đổi => cache lâu dài (immutable),
+        // trừ khi trả về ảnh thay thế: bản gốc khi ảnh thu nhỏ chưa tạo xong, hoặc notfound
+        ImageFile image = null;
+        boolean immutable = true;
+        if (size != null && size > 0) {
+            // Ảnh thu nhỏ nhỏ nhất mà vẫn >= size; null = size lớn hơn mọi bản thu nhỏ => bản gốc là đúng
+            String variantName = imageVariantService.resolveVariantName(imageName, size);
+            if (variantName != null) {
+                image = imageFileService.getImage(variantName);
+                // Chưa tạo xong => tạm dùng bản gốc, không để trình duyệt/CDN giữ bản gốc dưới URL ?size
+                immutable = image != null;
             }
-        } catch (Exception e) {
-            return ResponseEntity.notFound().build();
         }
+        if (image == null) {
+            image = imageFileService.getImage(imageName);
+        }
+        if (image == null) {
+            image = imageFileService.getImage(NOT_FOUND_IMAGE);
+            immutable = false;
+        }
+        if (image == null) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        imageFileService.writeImage(image, immutable, request, response);
     }
 
     private String storeFile(MultipartFile file) throws IOException {
@@ -156,7 +173,8 @@ public class ProductController {
         // Thêm UUID vào trước tên file để đảm bảo tên file là duy nhất
         String uniqueFilename = UUID.randomUUID().toString() + "_" + filename;
         // Đường dẫn đến thư mục mà bạn muốn lưu file
-        java.nio.file.Path uploadDir = Paths.get("uploads");
+        // Cùng thư mục mà viewImage và ImageVariantService đọc
+        java.nio.file.Path uploadDir = Paths.get(this.uploadDir);
         // Kiểm tra và tạo thư mục nếu nó không tồn tại
         if (!Files.exists(uploadDir)) {
             Files.createDirectories(uploadDir);
@@ -174,51 +192,90 @@ public class ProductController {
         return contentType != null && contentType.startsWith("image/");
     }
 
-    @GetMapping("")
-    public ResponseEntity<ProductListResponse> getProducts(
-            @RequestParam(defaultValue = "") String keyword,
+    @GetMapping(value = "", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<byte[]> getProducts(
+            @RequestParam(defaultValue = "", name = "keyword") String rawKeyword,
             @RequestParam(defaultValue = "0", name = "category_id") Long categoryId,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int limit
     ) throws JsonProcessingException {
-        int totalPages = 0;
+        // Chuẩn hóa keyword để truy vấn DB và khóa cache luôn khớp nhau
+        String keyword = rawKeyword.trim();
         // Tạo Pageable từ thông tin trang và giới hạn
-        PageRequest pageRequest = PageRequest.of(
-                page, limit,
-                //Sort.by("createdAt").descending()
-                Sort.by("id").ascending()
-        );
+        // Có keyword => không sort, để kết quả FULLTEXT được xếp theo độ liên quan
+        PageRequest pageRequest = keyword.isEmpty()
+                ? PageRequest.of(
+                        page, limit,
+                        //Sort.by("createdAt").descending()
+                        Sort.by("id").ascending())
+                : PageRequest.of(page, limit);
         logger.info(String.format("keyword = %s, category_id = %d, page = %d, limit = %d",
                 keyword, categoryId, page, limit));
 
-        List<ProductResponse> productResponses = productRedisService
-                .getAllProducts(keyword, categoryId, pageRequest);
-        if (productResponses!=null && !productResponses.isEmpty()) {
-            totalPages = productResponses.get(0).getTotalPages();
-        }
-        if (productResponses == null) {
-            Page<ProductResponse> productPage = productService.getAllProducts(keyword, categoryId, pageRequest);
-            // Lấy tổng số trang
-            totalPages = productPage.getTotalPages();
-            productResponses = productPage.getContent();
-            // Bổ sung totalPages vào các đối tượng ProductResponse
-            for (ProductResponse product : productResponses) {
-                product.setTotalPages(totalPages);
+        // Cache lưu sẵn body JSON của ProductListResponse => trả thẳng bytes, không qua Jackson
+        // Khi cache miss, chỉ 1 request cho mỗi khóa chạy loader bên dưới, các request khác chờ kết quả
+        CachedProductList productList = productRedisService.getProductList(
+                keyword, categoryId, pageRequest,
+                () -> {
+                    Page<ProductResponse> productPage = productService
+                            .getAllProducts(keyword, categoryId, pageRequest);
+                    // Lấy tổng số trang
+                    int totalPages = productPage.getTotalPages();
+                    List<ProductResponse> productResponses = productPage.getContent();
+                    // Bổ sung totalPages vào các đối tượng ProductResponse
+                    for (ProductResponse product : productResponses) {
+                        product.setTotalPages(totalPages);
+                    }
+                    return ProductListResponse
+                            .builder()
+                            .products(productResponses)
+                            .totalPages(totalPages)
+                            .build();
+                });
+        // Có ETag => Spring tự trả 304 (không gửi body) nếu If-None-Match của client khớp
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(productList.getEtag())
+                .body(productList.getBody());
+    }
+
+    //GET http://localhost:8088/api/v1/products/cursor?after_id=1000&limit=10
+    //Phân trang theo con trỏ (id), thời gian truy vấn không tăng theo độ sâu trang như page/limit
+    @GetMapping("/cursor")
+    public ResponseEntity<?> getProductsByCursor(
+            @RequestParam(defaultValue = "", name = "keyword") String rawKeyword,
+            @RequestParam(defaultValue = "0", name = "category_id") Long categoryId,
+            @RequestParam(defaultValue = "0", name = "after_id") Long afterId,
+            @RequestParam(defaultValue = "10") int limit,
+            @RequestParam(defaultValue = "false", name = "with_total") boolean withTotal
+    ) {
+        try {
+            if (limit < 1) {
+                return ResponseEntity.badRequest().body("Limit must be > 0");
+            }
+            // Giới hạn trên cũng tránh limit + 1 bị tràn số với limit = Integer.MAX_VALUE
+            limit = Math.min(limit, MAX_CURSOR_LIMIT);
+            String keyword = rawKeyword.trim();
+            // Lấy dư 1 sản phẩm để biết còn trang tiếp theo hay không
+            List<ProductResponse> productResponses = productService
+                    .getProductsAfter(keyword, categoryId, afterId, limit + 1);
+            boolean hasMore = productResponses.size() > limit;
+            if (hasMore) {
+                productResponses = productResponses.subList(0, limit);
             }
-            productRedisService.saveAllProductsToCache(
-                    productResponses,
-                    keyword,
-                    categoryId,
-                    pageRequest);
+            Long nextAfterId = hasMore
+                    ? productResponses.get(productResponses.size() - 1).getId()
+                    : null;
+            return ResponseEntity.ok(ProductCursorListResponse
+                    .builder()
+                    .products(productResponses)
+                    .nextAfterId(nextAfterId)
+                    .hasMore(hasMore)
+                    .total(withTotal ? productService.countProducts(keyword, categoryId) : null)
+                    .build());
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
         }
-
-
-
-        return ResponseEntity.ok(ProductListResponse
-                .builder()
-                .products(productResponses)
-                .totalPages(totalPages)
-                .build());
     }
 
     //http://localhost:8088/api/v1/products/6
@@ -266,23 +323,37 @@ public class ProductController {
     //@PostMapping("/generateFakeProducts")
     private ResponseEntity<String> generateFakeProducts() {
         Faker faker = new Faker();
+        // Gom sản phẩm thành từng lô để insert bằng JDBC batch thay vì 1 INSERT/sản phẩm
+        final int chunkSize = 1000;
+        List<ProductDTO> chunk = new ArrayList<>(chunkSize);
+        Set<String> generatedNames = new HashSet<>();
         for (int i = 0; i < 1_000_000; i++) {
             String productName = faker.commerce().productName();
-            if (productService.existsByName(productName)) {
+            if (!generatedNames.add(productName) || productService.existsByName(productName)) {
                 continue;
             }
-            ProductDTO productDTO = ProductDTO.builder()
+            chunk.add(ProductDTO.builder()
                     .name(productName)
                     .price((float) faker.number().numberBetween(10, 90_000_000))
                     .description(faker.lorem().sentence())
                     .thumbnail("")
                     .categoryId((long) faker.number().numberBetween(2, 5))
-                    .build();
-            try {
-                productService.createProduct(productDTO);
-            } catch (Exception e) {
-                return ResponseEntity.badRequest().body(e.getMessage());
+                    .build());
+            if (chunk.size() == chunkSize) {
+                try {
+                    productService.createProducts(chunk);
+                } catch (Exception e) {
+                    return ResponseEntity.badRequest().body(e.getMessage());
+                }
+                chunk.clear();
+            }
+        }
+        try {
+            if (!chunk.isEmpty()) {
+                productService.createProducts(chunk);
             }
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
         }
         return ResponseEntity.ok("Fake Products created successfully");
     }
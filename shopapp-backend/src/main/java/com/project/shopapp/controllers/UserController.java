@@ -5,6 +5,7 @@ import com.project.shopapp.dtos.RefreshTokenDTO;
 import com.project.shopapp.dtos.UpdateUserDTO;
 import com.project.shopapp.dtos.UserDTO;
 import com.project.shopapp.dtos.UserLoginDTO;
+import com.project.shopapp.exceptions.ServiceBusyException;
 import com.project.shopapp.models.Token;
 import com.project.shopapp.models.User;
 import com.project.shopapp.responses.LoginResponse;
@@ -63,6 +64,9 @@ public class UserController {
             registerResponse.setMessage(localizationUtils.getLocalizedMessage(MessageKeys.REGISTER_SUCCESSFULLY));
             registerResponse.setUser(user);
             return ResponseEntity.ok(registerResponse);
+        } catch (ServiceBusyException e) {
+            registerResponse.setMessage(e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(registerResponse);
         } catch (Exception e) {
             registerResponse.setMessage(e.getMessage());
             return ResponseEntity.badRequest().body(registerResponse);
@@ -95,6 +99,13 @@ public class UserController {
                     .roles(userDetail.getAuthorities().stream().map(item -> item.getAuthority()).toList())
                     .id(userDetail.getId())
                     .build());
+        } catch (ServiceBusyException e) {
+            // Pool bcrypt đang quá tải => 503 để client thử lại sau, không phải lỗi đăng nhập
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(
+                    LoginResponse.builder()
+                            .message(e.getMessage())
+                            .build()
+            );
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(
                     LoginResponse.builder()
@@ -120,6 +131,13 @@ public class UserController {
                     .roles(userDetail.getAuthorities().stream().map(item -> item.getAuthority()).toList())
                     .id(userDetail.getId())
                     .build());
+        } catch (ServiceBusyException e) {
+            // Pool bcrypt đang quá tải => 503 để client thử lại sau, không phải lỗi đăng nhập
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(
+                    LoginResponse.builder()
+                            .message(e.getMessage())
+                            .build()
+            );
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(
                     LoginResponse.builder()
@@ -129,6 +147,21 @@ public class UserController {
         }
     }
 
+    @PostMapping("/logout")
+    @PreAuthorize("hasRole('ROLE_ADMIN') or hasRole('ROLE_USER')")
+    @Operation(security = {@SecurityRequirement(name = "bearer-key")})
+    public ResponseEntity<String> logout(
+            @RequestHeader("Authorization") String authorizationHeader
+    ) {
+        try {
+            String extractedToken = authorizationHeader.substring(7); // Loại bỏ "Bearer " từ chuỗi token
+            tokenService.revokeToken(extractedToken);
+            return ResponseEntity.ok(localizationUtils.getLocalizedMessage(MessageKeys.LOGOUT_SUCCESSFULLY));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
     private boolean isMobileDevice(String userAgent) {
         // Kiểm tra User-Agent header để xác định thiết bị di động
         // Ví dụ đơn giản: nếu User-Agent chứa "Mobile" thì coi như là thiết bị di động
@@ -166,6 +199,8 @@ public class UserController {
             }
             User updatedUser = userService.updateUser(userId, updatedUserDTO);
             return ResponseEntity.ok(UserResponse.fromUser(updatedUser));
+        } catch (ServiceBusyException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
         }
@@ -0,0 +1,7 @@
+package com.project.shopapp.exceptions;
+
+public class ServiceBusyException extends Exception{
+    public ServiceBusyException(String message) {
+        super(message);
+    }
+}
@@ -1,15 +1,17 @@
 package com.project.shopapp.filters;
 
 import com.project.shopapp.components.JwtTokenUtils;
+import com.project.shopapp.components.PublicEndpoints;
 import com.project.shopapp.models.User;
+import com.project.shopapp.services.auth.AuthPrincipal;
+import com.project.shopapp.services.auth.IAuthCacheService;
+import com.project.shopapp.services.token.ITokenService;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.data.util.Pair;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetailsService;
@@ -18,17 +20,16 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
-import java.util.Arrays;
-import java.util.List;
 
 @Component
 @RequiredArgsConstructor
 
 public class JwtTokenFilter extends OncePerRequestFilter {
-    @Value("${api.prefix}")
-    private String apiPrefix;
     private final UserDetailsService userDetailsService;
     private final JwtTokenUtils jwtTokenUtil;
+    private final IAuthCacheService authCacheService;
+    private final PublicEndpoints publicEndpoints;
+    private final ITokenService tokenService;
 
     @Override
     protected void doFilterInternal(@NonNull HttpServletRequest request,
@@ -51,8 +52,13 @@ public class JwtTokenFilter extends OncePerRequestFilter {
             final String phoneNumber = jwtTokenUtil.extractPhoneNumber(token);
             if (phoneNumber != null
                     && SecurityContextHolder.getContext().getAuthentication() == null) {
-                User userDetails = (User) userDetailsService.loadUserByUsername(phoneNumber);
-                if (jwtTokenUtil.validateToken(token, userDetails)) {
+                // Bản chụp user đã đăng nhập được cache ngắn hạn, tránh truy vấn DB ở mỗi request
+                AuthPrincipal userDetails = authCacheService.getPrincipal(phoneNumber,
+                        () -> AuthPrincipal.from((User) userDetailsService.loadUserByUsername(phoneNumber)));
+                // Token phải còn trong kho token (chưa bị thu hồi), kết quả được cache ngắn hạn
+                boolean tokenActive = authCacheService.isTokenActive(token,
+                        () -> tokenService.isTokenActive(token));
+                if (tokenActive && jwtTokenUtil.validateToken(token, userDetails)) {
                     UsernamePasswordAuthenticationToken authenticationToken =
                             new UsernamePasswordAuthenticationToken(
                                     userDetails,
@@ -73,45 +79,7 @@ public class JwtTokenFilter extends OncePerRequestFilter {
     }
 
     private boolean isBypassToken(@NonNull HttpServletRequest request) {
-        final List<Pair<String, String>> bypassTokens = Arrays.asList(
-                // Healthcheck request, no JWT token required
-                Pair.of(String.format("%s/healthcheck/health", apiPrefix), "GET"),
-                Pair.of(String.format("%s/actuator/**", apiPrefix), "GET"),
-
-                Pair.of(String.format("%s/roles**", apiPrefix), "GET"),
-                Pair.of(String.format("%s/comments**", apiPrefix), "GET"),
-                Pair.of(String.format("%s/coupons**", apiPrefix), "GET"),
-
-                Pair.of(String.format("%s/products**", apiPrefix), "GET"),
-                Pair.of(String.format("%s/categories**", apiPrefix), "GET"),
-                Pair.of(String.format("%s/users/register", apiPrefix), "POST"),
-                Pair.of(String.format("%s/users/login", apiPrefix), "POST"),
-                Pair.of(String.format("%s/users/refreshToken", apiPrefix), "POST"),
-
-                // Swagger
-                Pair.of("/api-docs", "GET"),
-                Pair.of("/api-docs/**", "GET"),
-                Pair.of("/swagger-resources", "GET"),
-                Pair.of("/swagger-resources/**", "GET"),
-                Pair.of("/configuration/ui", "GET"),
-                Pair.of("/configuration/security", "GET"),
-                Pair.of("/swagger-ui/**", "GET"),
-                Pair.of("/swagger-ui.html", "GET"),
-                Pair.of("/swagger-ui/index.html", "GET")
-        );
-
-        String requestPath = request.getServletPath();
-        String requestMethod = request.getMethod();
-
-        for (Pair<String, String> token : bypassTokens) {
-            String path = token.getFirst();
-            String method = token.getSecond();
-            // Check if the request path and method match any pair in the bypassTokens list
-            if (requestPath.matches(path.replace("**", ".*"))
-                    && requestMethod.equalsIgnoreCase(method)) {
-                return true;
-            }
-        }
-        return false;
+        // Bảng bypass đã được biên dịch sẵn lúc khởi động
+        return publicEndpoints.matches(request);
     }
 }
@@ -1,5 +1,6 @@
 package com.project.shopapp.models;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.*;
 
@@ -39,4 +40,9 @@ public class Product extends BaseEntity{
     @OneToMany(mappedBy = "product", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     private List<ProductImage> productImages;
 
+    // category_id lúc đọc từ DB, ProductListener dùng để xóa cache của category cũ
+    @Transient
+    @JsonIgnore
+    private Long loadedCategoryId;
+
 }
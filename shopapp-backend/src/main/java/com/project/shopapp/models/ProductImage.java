@@ -27,4 +27,9 @@ public class ProductImage {
     @Column(name = "image_url", length = 300)
     @JsonProperty("image_url")
     private String imageUrl;
+
+    // Kích thước các ảnh thu nhỏ đã tạo (px, cạnh dài nhất), vd: "64,256,1024"
+    @Column(name = "variant_sizes", length = 50)
+    @JsonProperty("variant_sizes")
+    private String variantSizes;
 }
@@ -5,12 +5,21 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 @AllArgsConstructor
 public class ProductListener {
     private final IProductRedisService productRedisService;
     private static final Logger logger = LoggerFactory.getLogger(ProductListener.class);
 
+    // Gọi sau khi thực thể được đọc từ cơ sở dữ liệu
+    @PostLoad
+    public void postLoad(Product product) {
+        // Ghi nhớ category lúc đọc, để khi đổi category thì cache của category cũ cũng bị xóa
+        product.setLoadedCategoryId(getCategoryId(product));
+    }
+
     // gọi trước khi thực thể được lưu vào cơ sở dữ liệu
     @PrePersist
     public void prePersist(Product product) {
@@ -22,7 +31,7 @@ public class ProductListener {
     public void postPersist(Product product) {
         // Cập nhật bộ nhớ đệm Redis
         logger.info("postPersist");
-        productRedisService.clearCache();
+        invalidateAfterCommit(getCategoryId(product));
     }
 
     // Gọi trước khi thực thể được cập nhật
@@ -37,7 +46,12 @@ public class ProductListener {
     public void postUpdate(Product product) {
         // Cập nhật bộ nhớ đệm Redis
         logger.info("postUpdate");
-        productRedisService.clearCache();
+        Long categoryId = getCategoryId(product);
+        invalidateAfterCommit(categoryId);
+        Long loadedCategoryId = product.getLoadedCategoryId();
+        if (loadedCategoryId != null && !loadedCategoryId.equals(categoryId)) {
+            invalidateAfterCommit(loadedCategoryId);
+        }
     }
 
     // Gọi trước khi thực thể bị xóa
@@ -52,6 +66,24 @@ public class ProductListener {
     public void postRemove(Product product) {
         // Cập nhật bộ nhớ đệm Redis
         logger.info("postRemove");
-        productRedisService.clearCache();
+        invalidateAfterCommit(getCategoryId(product));
+    }
+
+    private static Long getCategoryId(Product product) {
+        return product.getCategory() != null ? product.getCategory().getId() : null;
+    }
+
+    // Chỉ xóa cache sau khi transaction commit, tránh request khác đọc lại dữ liệu cũ rồi ghi vào cache mới
+    private void invalidateAfterCommit(Long categoryId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            productRedisService.invalidateCategory(categoryId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                productRedisService.invalidateCategory(categoryId);
+            }
+        });
     }
 }
@@ -1,5 +1,6 @@
 package com.project.shopapp.models;
 
+import com.project.shopapp.utils.HashUtils;
 import jakarta.persistence.*;
 import lombok.*;
 
@@ -23,6 +24,13 @@ public class Token {
     @Column(name = "refresh_token", length = 255)
     private String refreshToken;
 
+    // SHA-256 của token/refresh token, có index để tra cứu thay cho cột VARCHAR(255)
+    @Column(name = "token_hash", length = 64)
+    private String tokenHash;
+
+    @Column(name = "refresh_token_hash", length = 64)
+    private String refreshTokenHash;
+
     @Column(name = "token_type", length = 50)
     private String tokenType;
 
@@ -43,4 +51,12 @@ public class Token {
     @JoinColumn(name = "user_id")
     private User user;
 
+    @PrePersist
+    @PreUpdate
+    public void updateHashes() {
+        tokenHash = HashUtils.sha256Hex(token);
+        refreshTokenHash = refreshToken == null || refreshToken.isEmpty()
+                ? null
+                : HashUtils.sha256Hex(refreshToken);
+    }
 }
@@ -0,0 +1,38 @@
+package com.project.shopapp.repositories;
+
+import com.project.shopapp.models.OrderDetail;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Types;
+import java.util.List;
+
+/**
+ * OrderDetail dùng GenerationType.IDENTITY nên Hibernate không gom được các câu INSERT
+ * (saveAll = 1 INSERT/dòng). Repository này insert bằng JDBC batch, kết hợp
+ * rewriteBatchedStatements=true của MySQL connector => 1 câu INSERT nhiều dòng.
+ * Chạy chung transaction/connection với JPA.
+ */
+@Repository
+@RequiredArgsConstructor
+public class OrderDetailBatchRepository {
+    private static final int BATCH_SIZE = 500;
+    private static final String INSERT_SQL =
+            "INSERT INTO order_details (order_id, product_id, price, number_of_products, total_money, color) " +
+            "VALUES (?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // Id của các OrderDetail không được gán lại sau khi insert
+    public void insertAll(List<OrderDetail> orderDetails) {
+        jdbcTemplate.batchUpdate(INSERT_SQL, orderDetails, BATCH_SIZE, (ps, orderDetail) -> {
+            ps.setLong(1, orderDetail.getOrder().getId());
+            ps.setLong(2, orderDetail.getProduct().getId());
+            ps.setObject(3, orderDetail.getPrice(), Types.FLOAT);
+            ps.setInt(4, orderDetail.getNumberOfProducts());
+            ps.setObject(5, orderDetail.getTotalMoney(), Types.FLOAT);
+            ps.setString(6, orderDetail.getColor());
+        });
+    }
+}
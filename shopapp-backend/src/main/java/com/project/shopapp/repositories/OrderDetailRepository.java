@@ -2,9 +2,17 @@ package com.project.shopapp.repositories;
 
 import com.project.shopapp.models.OrderDetail;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface OrderDetailRepository extends JpaRepository<OrderDetail, Long> {
     List<OrderDetail> findByOrderId(Long orderId);
+
+    //Chi tiết của nhiều đơn hàng cùng lúc, kèm product và category của product
+    @Query("SELECT od FROM OrderDetail od JOIN FETCH od.product p LEFT JOIN FETCH p.category " +
+            "WHERE od.order.id IN :orderIds ORDER BY od.id ASC")
+    List<OrderDetail> findWithProductsByOrderIds(@Param("orderIds") Collection<Long> orderIds);
 }
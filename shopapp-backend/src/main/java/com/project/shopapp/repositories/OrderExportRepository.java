@@ -0,0 +1,83 @@
+package com.project.shopapp.repositories;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Đọc đơn hàng + chi tiết để export bằng JDBC cursor chỉ đi tiến (TYPE_FORWARD_ONLY, CONCUR_READ_ONLY).
+ * fetchSize = Integer.MIN_VALUE bật chế độ streaming của MySQL connector: các dòng được đọc lần lượt
+ * từ socket thay vì nạp toàn bộ kết quả vào heap, và không có entity nào vào persistence context.
+ * Kết quả sắp theo (order.id, order_detail.id) để các dòng của cùng một đơn hàng đứng liền nhau.
+ */
+@Repository
+@RequiredArgsConstructor
+public class OrderExportRepository {
+    private static final String SELECT_SQL =
+            "SELECT o.id, o.user_id, o.fullname, o.email, o.phone_number, o.address, o.note, o.order_date, " +
+            "o.status, o.total_money, o.shipping_method, o.shipping_address, o.shipping_date, " +
+            "o.tracking_number, o.payment_method, od.id AS detail_id, od.product_id, od.price, " +
+            "od.number_of_products, od.total_money AS detail_total_money, od.color " +
+            "FROM orders o LEFT JOIN order_details od ON od.order_id = o.id " +
+            "WHERE o.active = 1";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // from/to (tính theo order_date, gồm cả 2 ngày) có thể null = không giới hạn
+    public void streamOrderRows(LocalDate from, LocalDate to, Consumer<OrderExportRow> consumer) {
+        StringBuilder sql = new StringBuilder(SELECT_SQL);
+        List<Object> params = new ArrayList<>();
+        if (from != null) {
+            sql.append(" AND o.order_date >= ?");
+            params.add(from);
+        }
+        if (to != null) {
+            sql.append(" AND o.order_date <= ?");
+            params.add(to);
+        }
+        sql.append(" ORDER BY o.id ASC, od.id ASC");
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(sql.toString(),
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(Integer.MIN_VALUE);
+            for (int i = 0; i < params.size(); i++) {
+                ps.setObject(i + 1, params.get(i));
+            }
+            return ps;
+        }, (RowCallbackHandler) rs -> consumer.accept(mapRow(rs)));
+    }
+
+    private static OrderExportRow mapRow(ResultSet rs) throws SQLException {
+        return new OrderExportRow(
+                rs.getLong("id"),
+                rs.getObject("user_id", Long.class),
+                rs.getString("fullname"),
+                rs.getString("email"),
+                rs.getString("phone_number"),
+                rs.getString("address"),
+                rs.getString("note"),
+                rs.getObject("order_date", LocalDate.class),
+                rs.getString("status"),
+                rs.getObject("total_money", Float.class),
+                rs.getString("shipping_method"),
+                rs.getString("shipping_address"),
+                rs.getObject("shipping_date", LocalDate.class),
+                rs.getString("tracking_number"),
+                rs.getString("payment_method"),
+                rs.getObject("detail_id", Long.class),
+                rs.getObject("product_id", Long.class),
+                rs.getObject("price", Float.class),
+                rs.getObject("number_of_products", Integer.class),
+                rs.getObject("detail_total_money", Float.class),
+                rs.getString("color"));
+    }
+}
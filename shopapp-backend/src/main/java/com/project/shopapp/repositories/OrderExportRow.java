@@ -0,0 +1,29 @@
+package com.project.shopapp.repositories;
+
+import java.time.LocalDate;
+
+// Một dòng của truy vấn export: thông tin đơn hàng + 1 dòng chi tiết (detailId = null nếu đơn không có chi tiết)
+public record OrderExportRow(
+        Long id,
+        Long userId,
+        String fullName,
+        String email,
+        String phoneNumber,
+        String address,
+        String note,
+        LocalDate orderDate,
+        String status,
+        Float totalMoney,
+        String shippingMethod,
+        String shippingAddress,
+        LocalDate shippingDate,
+        String trackingNumber,
+        String paymentMethod,
+        Long detailId,
+        Long productId,
+        Float price,
+        Integer numberOfProducts,
+        Float detailTotalMoney,
+        String color
+) {
+}
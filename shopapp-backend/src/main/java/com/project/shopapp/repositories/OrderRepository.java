@@ -7,18 +7,75 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 public interface OrderRepository extends JpaRepository<Order, Long> {
+    String ORDER_LIKE_FILTER = "AND (:likePattern IS NULL OR o.fullname LIKE :likePattern " +
+            "OR o.address LIKE :likePattern OR o.note LIKE :likePattern OR o.email LIKE :likePattern) ";
     //Tìm các đơn hàng của 1 user nào đó
     List<Order> findByUserId(Long userId);
-    @Query("SELECT o FROM Order o WHERE o.active = true AND (:keyword IS NULL OR :keyword = '' OR " +
+    //Lịch sử đơn hàng của user theo con trỏ, mới nhất trước, đi theo index (user_id, id)
+    @Query("SELECT o.id AS id, o.orderDate AS orderDate, o.status AS status, o.totalMoney AS totalMoney, " +
+            "o.paymentMethod AS paymentMethod, o.shippingMethod AS shippingMethod, " +
+            "o.shippingDate AS shippingDate, o.trackingNumber AS trackingNumber " +
+            "FROM Order o WHERE o.user.id = :userId AND o.id < :beforeId ORDER BY o.id DESC")
+    List<OrderSummary> findSummariesByUserIdBefore(@Param("userId") Long userId,
+                                                   @Param("beforeId") Long beforeId,
+                                                   Pageable pageable);
+    //Fetch luôn user và role (quan hệ EAGER) trong truy vấn trang, không select riêng cho từng đơn hàng
+    @Query(value = "SELECT o FROM Order o LEFT JOIN FETCH o.user u LEFT JOIN FETCH u.role " +
+            "WHERE o.active = true AND (:keyword IS NULL OR :keyword = '' OR " +
             "o.fullName LIKE %:keyword% " +
             "OR o.address LIKE %:keyword% " +
             "OR o.note LIKE %:keyword% " +
-            "OR o.email LIKE %:keyword%)")
+            "OR o.email LIKE %:keyword%)",
+            countQuery = "SELECT COUNT(o) FROM Order o WHERE o.active = true AND (:keyword IS NULL OR :keyword = '' OR " +
+                    "o.fullName LIKE %:keyword% " +
+                    "OR o.address LIKE %:keyword% " +
+                    "OR o.note LIKE %:keyword% " +
+                    "OR o.email LIKE %:keyword%)")
     Page<Order> findByKeyword(@Param("keyword") String keyword, Pageable pageable);
+
+    //Tìm chính xác theo mã đơn hàng hoặc số điện thoại (PRIMARY + idx_orders_phone_number)
+    @Query(value = "SELECT o FROM Order o LEFT JOIN FETCH o.user u LEFT JOIN FETCH u.role " +
+            "WHERE o.active = true AND (o.id = :id OR o.phoneNumber = :phoneNumber)",
+            countQuery = "SELECT COUNT(o) FROM Order o " +
+                    "WHERE o.active = true AND (o.id = :id OR o.phoneNumber = :phoneNumber)")
+    Page<Order> findActiveByIdOrPhoneNumber(@Param("id") Long id,
+                                            @Param("phoneNumber") String phoneNumber,
+                                            Pageable pageable);
+
+    //Tìm chính xác theo email (idx_orders_email)
+    @Query(value = "SELECT o FROM Order o LEFT JOIN FETCH o.user u LEFT JOIN FETCH u.role " +
+            "WHERE o.active = true AND o.email = :email",
+            countQuery = "SELECT COUNT(o) FROM Order o WHERE o.active = true AND o.email = :email")
+    Page<Order> findActiveByEmail(@Param("email") String email, Pageable pageable);
+
+    //Email chưa gõ hết (vd: "john@exa"): LIKE 'kw%' không có % ở đầu nên vẫn đi theo idx_orders_email
+    @Query(value = "SELECT o FROM Order o LEFT JOIN FETCH o.user u LEFT JOIN FETCH u.role " +
+            "WHERE o.active = true AND o.email LIKE :emailPrefix",
+            countQuery = "SELECT COUNT(o) FROM Order o WHERE o.active = true AND o.email LIKE :emailPrefix")
+    Page<Order> findActiveByEmailPrefix(@Param("emailPrefix") String emailPrefix, Pageable pageable);
+
+    //Chỉ lấy id theo FULLTEXT index, xếp theo độ liên quan, đơn mới hơn trước nếu bằng điểm
+    //likePattern: các từ quá ngắn/stopword không có trong FULLTEXT index (null = không lọc)
+    @Query(value = "SELECT o.id FROM orders o WHERE o.active = 1 " +
+            "AND MATCH(o.fullname, o.address, o.note, o.email) AGAINST (:query IN BOOLEAN MODE) " +
+            ORDER_LIKE_FILTER +
+            "ORDER BY MATCH(o.fullname, o.address, o.note, o.email) AGAINST (:query IN BOOLEAN MODE) DESC, " +
+            "o.id DESC",
+            countQuery = "SELECT COUNT(*) FROM orders o WHERE o.active = 1 " +
+                    "AND MATCH(o.fullname, o.address, o.note, o.email) AGAINST (:query IN BOOLEAN MODE) " +
+                    ORDER_LIKE_FILTER,
+            nativeQuery = true)
+    Page<Long> searchOrderIdsByFullText(@Param("query") String query,
+                                        @Param("likePattern") String likePattern,
+                                        Pageable pageable);
+
+    @Query("SELECT o FROM Order o LEFT JOIN FETCH o.user u LEFT JOIN FETCH u.role WHERE o.id IN :ids")
+    List<Order> findWithUsersByIdIn(@Param("ids") Collection<Long> ids);
 }
 /*
 INSERT INTO orders (user_id, fullname, email, phone_number, address, note, status, total_money)
@@ -0,0 +1,15 @@
+package com.project.shopapp.repositories;
+
+import java.time.LocalDate;
+
+// Chỉ các cột cần cho lịch sử đơn hàng, không tạo entity Order (không user, không order_details)
+public interface OrderSummary {
+    Long getId();
+    LocalDate getOrderDate();
+    String getStatus();
+    Float getTotalMoney();
+    String getPaymentMethod();
+    String getShippingMethod();
+    LocalDate getShippingDate();
+    String getTrackingNumber();
+}
@@ -0,0 +1,39 @@
+package com.project.shopapp.repositories;
+
+import com.project.shopapp.models.Product;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Insert nhiều sản phẩm bằng JDBC batch (dùng cho việc sinh dữ liệu giả).
+ * Không đi qua JPA nên ProductListener không chạy, bên gọi phải tự xóa cache sản phẩm.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ProductBatchRepository {
+    private static final int BATCH_SIZE = 1000;
+    private static final String INSERT_SQL =
+            "INSERT INTO products (name, price, thumbnail, description, category_id, created_at, updated_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public void insertAll(List<Product> products) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(INSERT_SQL, products, BATCH_SIZE, (ps, product) -> {
+            ps.setString(1, product.getName());
+            ps.setObject(2, product.getPrice(), Types.FLOAT);
+            ps.setString(3, product.getThumbnail());
+            ps.setString(4, product.getDescription());
+            ps.setObject(5, product.getCategory() != null ? product.getCategory().getId() : null, Types.BIGINT);
+            ps.setTimestamp(6, now);
+            ps.setTimestamp(7, now);
+        });
+    }
+}
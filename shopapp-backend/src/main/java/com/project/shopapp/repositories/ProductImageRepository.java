@@ -2,9 +2,25 @@ package com.project.shopapp.repositories;
 
 import com.project.shopapp.models.ProductImage;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface ProductImageRepository extends JpaRepository<ProductImage, Long> {
     List<ProductImage> findByProductId(Long productId);
+
+    //Ảnh của cả một trang sản phẩm trong 1 truy vấn
+    @Query("SELECT pi.id AS id, pi.product.id AS productId, pi.imageUrl AS imageUrl, " +
+            "pi.variantSizes AS variantSizes FROM ProductImage pi " +
+            "WHERE pi.product.id IN :productIds ORDER BY pi.id ASC")
+    List<ProductImageSummary> findSummariesByProductIds(@Param("productIds") Collection<Long> productIds);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE ProductImage pi SET pi.variantSizes = :variantSizes WHERE pi.id = :id")
+    int updateVariantSizes(@Param("id") Long id, @Param("variantSizes") String variantSizes);
 }
@@ -0,0 +1,9 @@
+package com.project.shopapp.repositories;
+
+// Ảnh của nhiều sản phẩm lấy trong 1 truy vấn, không tải lại Product của từng ảnh
+public interface ProductImageSummary {
+    Long getId();
+    Long getProductId();
+    String getImageUrl();
+    String getVariantSizes();
+}
@@ -6,22 +6,108 @@ import org.springframework.data.domain.*;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 public interface ProductRepository extends JpaRepository<Product, Long> {
+    String LIKE_FILTER =
+            "AND (:likePattern IS NULL OR p.name LIKE :likePattern OR p.description LIKE :likePattern) ";
+    String COUNT_BY_FULL_TEXT = "SELECT COUNT(*) FROM products p WHERE " +
+            "(:categoryId IS NULL OR :categoryId = 0 OR p.category_id = :categoryId) " +
+            "AND MATCH(p.name, p.description) AGAINST (:query IN BOOLEAN MODE) " +
+            LIKE_FILTER;
+
     boolean existsByName(String name);
     Page<Product> findAll(Pageable pageable);//phân trang
 
-    @Query("SELECT p FROM Product p WHERE " +
+    //Danh sách sản phẩm dạng projection: chỉ các cột cần hiển thị, ảnh được lấy riêng cho cả trang
+    @Query(value = "SELECT p.id AS id, p.name AS name, p.price AS price, p.thumbnail AS thumbnail, " +
+            "p.description AS description, p.category.id AS categoryId, " +
+            "p.createdAt AS createdAt, p.updatedAt AS updatedAt FROM Product p WHERE " +
             "(:categoryId IS NULL OR :categoryId = 0 OR p.category.id = :categoryId) " +
-            "AND (:keyword IS NULL OR :keyword = '' OR p.name LIKE %:keyword% OR p.description LIKE %:keyword%)")
-    Page<Product> searchProducts
+            "AND (:keyword IS NULL OR :keyword = '' OR p.name LIKE %:keyword% OR p.description LIKE %:keyword%)",
+            countQuery = "SELECT COUNT(p) FROM Product p WHERE " +
+                    "(:categoryId IS NULL OR :categoryId = 0 OR p.category.id = :categoryId) " +
+                    "AND (:keyword IS NULL OR :keyword = '' OR p.name LIKE %:keyword% OR p.description LIKE %:keyword%)")
+    Page<ProductSummary> searchProducts
             (@Param("categoryId") Long categoryId,
              @Param("keyword") String keyword, Pageable pageable);
+    //Tìm kiếm bằng FULLTEXT index (V4__products_fulltext.sql), sắp xếp theo độ liên quan
+    //query là chuỗi BOOLEAN MODE, vd: "+iphone* +pro*"
+    //likePattern: các từ quá ngắn/stopword không có trong FULLTEXT index, vd: "%15%" (null = không lọc)
+    @Query(value = "SELECT p.id AS id, p.name AS name, p.price AS price, p.thumbnail AS thumbnail, " +
+            "p.description AS description, p.category_id AS categoryId, " +
+            "p.created_at AS createdAt, p.updated_at AS updatedAt FROM products p WHERE " +
+            "(:categoryId IS NULL OR :categoryId = 0 OR p.category_id = :categoryId) " +
+            "AND MATCH(p.name, p.description) AGAINST (:query IN BOOLEAN MODE) " +
+            LIKE_FILTER +
+            "ORDER BY MATCH(p.name, p.description) AGAINST (:query IN BOOLEAN MODE) DESC, p.id ASC",
+            countQuery = COUNT_BY_FULL_TEXT,
+            nativeQuery = true)
+    Page<ProductSummary> searchProductsByFullText
+            (@Param("categoryId") Long categoryId,
+             @Param("query") String query,
+             @Param("likePattern") String likePattern, Pageable pageable);
+
+    //Như trên nhưng sắp xếp theo sort của pageable (tên cột, vd: created_at) thay vì độ liên quan
+    @Query(value = "SELECT p.id AS id, p.name AS name, p.price AS price, p.thumbnail AS thumbnail, " +
+            "p.description AS description, p.category_id AS categoryId, " +
+            "p.created_at AS createdAt, p.updated_at AS updatedAt FROM products p WHERE " +
+            "(:categoryId IS NULL OR :categoryId = 0 OR p.category_id = :categoryId) " +
+            "AND MATCH(p.name, p.description) AGAINST (:query IN BOOLEAN MODE) " +
+            LIKE_FILTER,
+            countQuery = COUNT_BY_FULL_TEXT,
+            nativeQuery = true)
+    Page<ProductSummary> searchProductsByFullTextSorted
+            (@Param("categoryId") Long categoryId,
+             @Param("query") String query,
+             @Param("likePattern") String likePattern, Pageable pageable);
+
+    @Query(value = "SELECT p.id AS id, p.name AS name, p.price AS price, p.thumbnail AS thumbnail, " +
+            "p.description AS description, p.category_id AS categoryId, " +
+            "p.created_at AS createdAt, p.updated_at AS updatedAt FROM products p WHERE p.id > :afterId " +
+            "AND (:categoryId IS NULL OR :categoryId = 0 OR p.category_id = :categoryId) " +
+            "AND MATCH(p.name, p.description) AGAINST (:query IN BOOLEAN MODE) " +
+            LIKE_FILTER +
+            "ORDER BY p.id ASC",
+            nativeQuery = true)
+    List<ProductSummary> searchProductsAfterByFullText
+            (@Param("categoryId") Long categoryId,
+             @Param("query") String query,
+             @Param("likePattern") String likePattern,
+             @Param("afterId") Long afterId, Pageable pageable);
+
+    @Query(value = COUNT_BY_FULL_TEXT, nativeQuery = true)
+    long countProductsByFullText(@Param("categoryId") Long categoryId,
+                                 @Param("query") String query,
+                                 @Param("likePattern") String likePattern);
+
+    //Phân trang kiểu keyset (seek): WHERE id > afterId ORDER BY id LIMIT, không OFFSET và không count(*)
+    @Query("SELECT p.id AS id, p.name AS name, p.price AS price, p.thumbnail AS thumbnail, " +
+            "p.description AS description, p.category.id AS categoryId, " +
+            "p.createdAt AS createdAt, p.updatedAt AS updatedAt FROM Product p WHERE p.id > :afterId " +
+            "AND (:categoryId IS NULL OR :categoryId = 0 OR p.category.id = :categoryId) " +
+            "AND (:keyword IS NULL OR :keyword = '' OR p.name LIKE %:keyword% OR p.description LIKE %:keyword%) " +
+            "ORDER BY p.id ASC")
+    List<ProductSummary> searchProductsAfter
+            (@Param("categoryId") Long categoryId,
+             @Param("keyword") String keyword,
+             @Param("afterId") Long afterId, Pageable pageable);
+
+    @Query("SELECT COUNT(p) FROM Product p WHERE " +
+            "(:categoryId IS NULL OR :categoryId = 0 OR p.category.id = :categoryId) " +
+            "AND (:keyword IS NULL OR :keyword = '' OR p.name LIKE %:keyword% OR p.description LIKE %:keyword%)")
+    long countProducts(@Param("categoryId") Long categoryId, @Param("keyword") String keyword);
+
     @Query("SELECT p FROM Product p LEFT JOIN FETCH p.productImages WHERE p.id = :productId")
     Optional<Product> getDetailProduct(@Param("productId") Long productId);
 
-    @Query("SELECT p FROM Product p WHERE p.id IN :productIds")
+    //Khởi tạo danh sách ảnh (LAZY) của nhiều product đã có trong persistence context bằng 1 truy vấn
+    @Query("SELECT p FROM Product p LEFT JOIN FETCH p.productImages WHERE p.id IN :productIds")
+    List<Product> fetchProductImages(@Param("productIds") Collection<Long> productIds);
+
+    //Fetch luôn category (quan hệ EAGER) để không phát sinh thêm truy vấn cho từng category
+    @Query("SELECT p FROM Product p LEFT JOIN FETCH p.category WHERE p.id IN :productIds")
     List<Product> findProductsByIds(@Param("productIds") List<Long> productIds);
 }
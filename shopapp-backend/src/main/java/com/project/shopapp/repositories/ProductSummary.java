@@ -0,0 +1,15 @@
+package com.project.shopapp.repositories;
+
+import java.time.LocalDateTime;
+
+// Chỉ các cột cần cho danh sách sản phẩm, không tạo entity Product (không category, không ảnh lazy)
+public interface ProductSummary {
+    Long getId();
+    String getName();
+    Float getPrice();
+    String getThumbnail();
+    String getDescription();
+    Long getCategoryId();
+    LocalDateTime getCreatedAt();
+    LocalDateTime getUpdatedAt();
+}
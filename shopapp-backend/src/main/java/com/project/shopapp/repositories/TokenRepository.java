@@ -2,14 +2,52 @@ package com.project.shopapp.repositories;
 
 import com.project.shopapp.models.Token;
 import com.project.shopapp.models.User;
+import com.project.shopapp.utils.HashUtils;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
 public interface TokenRepository extends JpaRepository<Token, Long> {
     List<Token> findByUser(User user);
-    Token findByToken(String token);
-    Token findByRefreshToken(String token);
+    long countByUser(User user);
+
+    //Token bị xóa trước khi vượt giới hạn: ưu tiên token không phải mobile, sau đó token cũ nhất
+    @Query("SELECT t FROM Token t WHERE t.user = :user ORDER BY t.isMobile ASC, t.id ASC")
+    List<Token> findTokensToEvict(@Param("user") User user, Pageable pageable);
+
+    //Token đã thu hồi: đi theo idx_tokens_revoked (V9), thứ tự id có sẵn trong index
+    @Query(value = "SELECT t.id FROM tokens t WHERE t.revoked = 1 ORDER BY t.id LIMIT :limit",
+            nativeQuery = true)
+    List<Long> findRevokedTokenIds(@Param("limit") int limit);
+
+    //Cả access token lẫn refresh token đều hết hạn: quét khoảng trên idx_tokens_expiration (V9),
+    //điều kiện refresh_expiration_date được kiểm tra ngay trong index
+    @Query(value = "SELECT t.id FROM tokens t WHERE t.expiration_date < :now " +
+            "AND (t.refresh_expiration_date IS NULL OR t.refresh_expiration_date < :now) " +
+            "ORDER BY t.expiration_date LIMIT :limit",
+            nativeQuery = true)
+    List<Long> findExpiredTokenIds(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM Token t WHERE t.id IN :ids")
+    int deleteByIds(@Param("ids") List<Long> ids);
+    // Tra cứu theo hash đã đánh index (V5), không quét cả bảng tokens
+    Token findByTokenHash(String tokenHash);
+    Token findByRefreshTokenHash(String refreshTokenHash);
+
+    default Token findByToken(String token) {
+        return findByTokenHash(HashUtils.sha256Hex(token));
+    }
+
+    default Token findByRefreshToken(String refreshToken) {
+        return findByRefreshTokenHash(HashUtils.sha256Hex(refreshToken));
+    }
 }
\ No newline at end of file
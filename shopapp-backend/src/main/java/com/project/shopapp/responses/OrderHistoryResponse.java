@@ -0,0 +1,24 @@
+package com.project.shopapp.responses;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@AllArgsConstructor
+@Data
+@Builder
+@NoArgsConstructor
+public class OrderHistoryResponse {
+    private List<OrderSummaryResponse> orders;
+
+    // Truyền vào before_id để lấy trang tiếp theo (các đơn cũ hơn), null nếu đã hết
+    @JsonProperty("next_before_id")
+    private Long nextBeforeId;
+
+    @JsonProperty("has_more")
+    private boolean hasMore;
+}
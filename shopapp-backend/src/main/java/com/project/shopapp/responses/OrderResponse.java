@@ -63,6 +63,11 @@ public class OrderResponse {
     private List<OrderDetail> orderDetails;
 
     public static OrderResponse fromOrder(Order order) {
+        return fromOrder(order, order.getOrderDetails());
+    }
+
+    // orderDetails đã được tải sẵn cho cả trang, không đụng tới collection LAZY của order
+    public static OrderResponse fromOrder(Order order, List<OrderDetail> orderDetails) {
         OrderResponse orderResponse = OrderResponse
                 .builder()
                 .id(order.getId())
@@ -79,7 +84,7 @@ public class OrderResponse {
                 .shippingAddress(order.getShippingAddress())
                 .shippingDate(order.getShippingDate())
                 .paymentMethod(order.getPaymentMethod())
-                .orderDetails(order.getOrderDetails())
+                .orderDetails(orderDetails)
                 .build();
         return orderResponse;
     }
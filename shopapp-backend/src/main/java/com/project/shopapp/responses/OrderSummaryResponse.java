@@ -0,0 +1,51 @@
+package com.project.shopapp.responses;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.project.shopapp.repositories.OrderSummary;
+import lombok.*;
+
+import java.time.LocalDate;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class OrderSummaryResponse {
+    private Long id;
+
+    @JsonProperty("order_date")
+    private LocalDate orderDate;
+
+    @JsonProperty("status")
+    private String status;
+
+    @JsonProperty("total_money")
+    private double totalMoney;
+
+    @JsonProperty("payment_method")
+    private String paymentMethod;
+
+    @JsonProperty("shipping_method")
+    private String shippingMethod;
+
+    @JsonProperty("shipping_date")
+    private LocalDate shippingDate;
+
+    @JsonProperty("tracking_number")
+    private String trackingNumber;
+
+    public static OrderSummaryResponse fromSummary(OrderSummary order) {
+        return OrderSummaryResponse
+                .builder()
+                .id(order.getId())
+                .orderDate(order.getOrderDate())
+                .status(order.getStatus())
+                .totalMoney(order.getTotalMoney() == null ? 0 : order.getTotalMoney())
+                .paymentMethod(order.getPaymentMethod())
+                .shippingMethod(order.getShippingMethod())
+                .shippingDate(order.getShippingDate())
+                .trackingNumber(order.getTrackingNumber())
+                .build();
+    }
+}
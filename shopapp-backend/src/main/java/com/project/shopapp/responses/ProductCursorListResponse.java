@@ -0,0 +1,30 @@
+package com.project.shopapp.responses;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@AllArgsConstructor
+@Data
+@Builder
+@NoArgsConstructor
+public class ProductCursorListResponse {
+    private List<ProductResponse> products;
+
+    // Truyền vào after_id để lấy trang tiếp theo, null nếu đã hết
+    @JsonProperty("next_after_id")
+    private Long nextAfterId;
+
+    @JsonProperty("has_more")
+    private boolean hasMore;
+
+    // Chỉ có khi client yêu cầu with_total=true (phải count toàn bộ kết quả)
+    @JsonProperty("total")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Long total;
+}
@@ -3,6 +3,8 @@ package com.project.shopapp.services;
 import com.project.shopapp.dtos.OrderDTO;
 import com.project.shopapp.exceptions.DataNotFoundException;
 import com.project.shopapp.models.Order;
+import com.project.shopapp.responses.OrderResponse;
+import com.project.shopapp.responses.OrderSummaryResponse;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
@@ -14,5 +16,6 @@ public interface IOrderService {
     Order updateOrder(Long id, OrderDTO orderDTO) throws DataNotFoundException;
     void deleteOrder(Long id);
     List<Order> findByUserId(Long userId);
-    Page<Order> getOrdersByKeyword(String keyword, Pageable pageable);
+    List<OrderSummaryResponse> findOrderHistory(Long userId, Long beforeId, int limit);
+    Page<OrderResponse> getOrdersByKeyword(String keyword, Pageable pageable);
 }
@@ -12,9 +12,15 @@ import java.util.List;
 
 public interface IProductService {
     Product createProduct(ProductDTO productDTO) throws Exception;
+    // Insert nhiều sản phẩm bằng JDBC batch
+    void createProducts(List<ProductDTO> productDTOs) throws Exception;
     Product getProductById(long id) throws Exception;
     public Page<ProductResponse> getAllProducts(String keyword,
                                                 Long categoryId, PageRequest pageRequest);
+    // Lấy tối đa limit sản phẩm có id > afterId, sắp xếp theo id tăng dần
+    List<ProductResponse> getProductsAfter(String keyword,
+                                           Long categoryId, Long afterId, int limit);
+    long countProducts(String keyword, Long categoryId);
     Product updateProduct(long id, ProductDTO productDTO) throws Exception;
     void deleteProduct(long id);
     boolean existsByName(String name);
@@ -6,28 +6,40 @@ import com.project.shopapp.dtos.OrderDetailDTO;
 import com.project.shopapp.dtos.OrderWithDetailsDTO;
 import com.project.shopapp.exceptions.DataNotFoundException;
 import com.project.shopapp.models.*;
+import com.project.shopapp.repositories.OrderDetailBatchRepository;
 import com.project.shopapp.repositories.OrderDetailRepository;
 import com.project.shopapp.repositories.OrderRepository;
 import com.project.shopapp.repositories.ProductRepository;
 import com.project.shopapp.repositories.UserRepository;
+import com.project.shopapp.responses.OrderResponse;
+import com.project.shopapp.responses.OrderSummaryResponse;
+import com.project.shopapp.utils.FullTextUtils;
 import lombok.RequiredArgsConstructor;
 import org.aspectj.weaver.ast.Or;
 import org.modelmapper.ModelMapper;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.util.*;
+import java.util.regex.Pattern;
 
 @Service
 @RequiredArgsConstructor
 public class OrderService implements IOrderService{
+    // Mã đơn hàng hoặc số điện thoại, vd: 1024, 0912345678, +84912345678
+    private static final Pattern PHONE_OR_ID_PATTERN = Pattern.compile("^\\+?\\d+$");
+    private static final Pattern EMAIL_PATTERN = Pattern.compile("^[^\\s@]+@[^\\s@]+$");
+    private static final int MAX_ORDER_ID_DIGITS = 18;
     private final UserRepository userRepository;
     private final OrderRepository orderRepository;
     private final ProductRepository productRepository;
     private final OrderDetailRepository orderDetailRepository;
+    private final OrderDetailBatchRepository orderDetailBatchRepository;
 
     private final ModelMapper modelMapper;
 
@@ -58,6 +70,23 @@ public class OrderService implements IOrderService{
         order.setShippingDate(shippingDate);
         order.setActive(true);//đoạn này nên set sẵn trong sql
         order.setTotalMoney(orderDTO.getTotalMoney());
+        // Lấy toàn bộ sản phẩm trong giỏ hàng bằng 1 truy vấn thay vì findById cho từng sản phẩm
+        List<Long> productIds = orderDTO.getCartItems()
+                .stream()
+                .map(CartItemDTO::getProductId)
+                .distinct()
+                .toList();
+        Map<Long, Product> productsById = new HashMap<>();
+        for (Product product : productRepository.findProductsByIds(productIds)) {
+            productsById.put(product.getId(), product);
+        }
+        List<Long> missingProductIds = productIds
+                .stream()
+                .filter(productId -> !productsById.containsKey(productId))
+                .toList();
+        if (!missingProductIds.isEmpty()) {
+            throw new DataNotFoundException("Product not found with id: " + missingProductIds);
+        }
         orderRepository.save(order);
         // Tạo danh sách các đối tượng OrderDetail từ cartItems
         List<OrderDetail> orderDetails = new ArrayList<>();
@@ -67,13 +96,9 @@ public class OrderService implements IOrderService{
             orderDetail.setOrder(order);
 
             // Lấy thông tin sản phẩm từ cartItemDTO
-            Long productId = cartItemDTO.getProductId();
+            Product product = productsById.get(cartItemDTO.getProductId());
             int quantity = cartItemDTO.getQuantity();
 
-            // Tìm thông tin sản phẩm từ cơ sở dữ liệu (hoặc sử dụng cache nếu cần)
-            Product product = productRepository.findById(productId)
-                    .orElseThrow(() -> new DataNotFoundException("Product not found with id: " + productId));
-
             // Đặt thông tin cho OrderDetail
             orderDetail.setProduct(product);
             orderDetail.setNumberOfProducts(quantity);
@@ -84,9 +109,8 @@ public class OrderService implements IOrderService{
             orderDetails.add(orderDetail);
         }
 
-
-        // Lưu danh sách OrderDetail vào cơ sở dữ liệu
-        orderDetailRepository.saveAll(orderDetails);
+        // Lưu danh sách OrderDetail vào cơ sở dữ liệu bằng JDBC batch (1 câu INSERT nhiều dòng)
+        orderDetailBatchRepository.insertAll(orderDetails);
         return order;
     }
     @Transactional
@@ -150,7 +174,80 @@ public class OrderService implements IOrderService{
     }
 
     @Override
-    public Page<Order> getOrdersByKeyword(String keyword, Pageable pageable) {
-        return orderRepository.findByKeyword(keyword, pageable);
+    public List<OrderSummaryResponse> findOrderHistory(Long userId, Long beforeId, int limit) {
+        // Chỉ cần LIMIT, không OFFSET; before_id = 0 (hoặc null) là bắt đầu từ đơn mới nhất
+        long before = beforeId == null || beforeId <= 0 ? Long.MAX_VALUE : beforeId;
+        return orderRepository.findSummariesByUserIdBefore(userId, before, PageRequest.of(0, limit))
+                .stream()
+                .map(OrderSummaryResponse::fromSummary)
+                .toList();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<OrderResponse> getOrdersByKeyword(String keyword, Pageable pageable) {
+        // Số truy vấn cố định cho mỗi trang: đơn hàng (kèm user) + count + chi tiết (kèm product) + ảnh product
+        Page<Order> orderPage = searchOrders(keyword, pageable);
+        List<Long> orderIds = orderPage.getContent().stream().map(Order::getId).toList();
+        Map<Long, List<OrderDetail>> orderDetails = new HashMap<>();
+        if (!orderIds.isEmpty()) {
+            List<OrderDetail> details = orderDetailRepository.findWithProductsByOrderIds(orderIds);
+            Set<Long> productIds = new HashSet<>();
+            for (OrderDetail detail : details) {
+                orderDetails.computeIfAbsent(detail.getOrder().getId(), id -> new ArrayList<>()).add(detail);
+                productIds.add(detail.getProduct().getId());
+            }
+            if (!productIds.isEmpty()) {
+                productRepository.fetchProductImages(productIds);
+            }
+        }
+        return orderPage.map(order -> OrderResponse.fromOrder(order,
+                orderDetails.getOrDefault(order.getId(), new ArrayList<>())));
+    }
+
+    // Thứ tự tìm kiếm: khớp chính xác (mã đơn, số điện thoại, email) => FULLTEXT => LIKE như cũ
+    private Page<Order> searchOrders(String keyword, Pageable pageable) {
+        String trimmedKeyword = keyword == null ? "" : keyword.trim();
+        if (trimmedKeyword.isEmpty()) {
+            return orderRepository.findByKeyword(trimmedKeyword, pageable);
+        }
+        Page<Order> exactMatches = Page.empty(pageable);
+        if (PHONE_OR_ID_PATTERN.matcher(trimmedKeyword).matches()) {
+            String digits = trimmedKeyword.startsWith("+") ? trimmedKeyword.substring(1) : trimmedKeyword;
+            // Số quá dài để là mã đơn hàng thì chỉ so với số điện thoại
+            Long orderId = digits.length() <= MAX_ORDER_ID_DIGITS ? Long.valueOf(digits) : null;
+            exactMatches = orderRepository.findActiveByIdOrPhoneNumber(orderId, trimmedKeyword, pageable);
+        } else if (EMAIL_PATTERN.matcher(trimmedKeyword).matches()) {
+            exactMatches = orderRepository.findActiveByEmail(trimmedKeyword, pageable);
+            if (exactMatches.isEmpty()) {
+                // Email gõ dở, vd: "john@exa" => tìm theo tiền tố, vẫn dùng idx_orders_email
+                exactMatches = orderRepository.findActiveByEmailPrefix(
+                        FullTextUtils.escapeLike(trimmedKeyword) + "%", pageable);
+            }
+        }
+        if (!exactMatches.isEmpty()) {
+            return exactMatches;
+        }
+        String fullTextQuery = FullTextUtils.toBooleanModeQuery(trimmedKeyword);
+        if (fullTextQuery == null) {
+            // Mọi từ đều ngắn hơn innodb_ft_min_token_size
+            return orderRepository.findByKeyword(trimmedKeyword, pageable);
+        }
+        // Kết quả xếp theo độ liên quan nên bỏ sort của pageable
+        Page<Long> idPage = orderRepository.searchOrderIdsByFullText(fullTextQuery,
+                FullTextUtils.toLikePattern(trimmedKeyword),
+                PageRequest.of(pageable.getPageNumber(), pageable.getPageSize()));
+        List<Long> orderIds = idPage.getContent();
+        Map<Long, Order> ordersById = new HashMap<>();
+        if (!orderIds.isEmpty()) {
+            for (Order order : orderRepository.findWithUsersByIdIn(orderIds)) {
+                ordersById.put(order.getId(), order);
+            }
+        }
+        List<Order> orders = orderIds.stream()
+                .map(ordersById::get)
+                .filter(Objects::nonNull)
+                .toList();
+        return new PageImpl<>(orders, pageable, idPage.getTotalElements());
     }
 }
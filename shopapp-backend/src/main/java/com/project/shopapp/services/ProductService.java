@@ -8,16 +8,28 @@ import com.project.shopapp.models.Category;
 import com.project.shopapp.models.Product;
 import com.project.shopapp.models.ProductImage;
 import com.project.shopapp.repositories.CategoryRepository;
+import com.project.shopapp.repositories.ProductBatchRepository;
 import com.project.shopapp.repositories.ProductImageRepository;
+import com.project.shopapp.repositories.ProductImageSummary;
 import com.project.shopapp.repositories.ProductRepository;
+import com.project.shopapp.repositories.ProductSummary;
 import com.project.shopapp.responses.ProductResponse;
+import com.project.shopapp.services.product.IProductRedisService;
+import com.project.shopapp.utils.FullTextUtils;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
 
 @Service
@@ -26,6 +38,8 @@ public class ProductService implements IProductService{
     private final ProductRepository productRepository;
     private final CategoryRepository categoryRepository;
     private final ProductImageRepository productImageRepository;
+    private final ProductBatchRepository productBatchRepository;
+    private final IProductRedisService productRedisService;
     @Override
     @Transactional
     public Product createProduct(ProductDTO productDTO) throws DataNotFoundException {
@@ -45,6 +59,43 @@ public class ProductService implements IProductService{
         return productRepository.save(newProduct);
     }
 
+    @Override
+    @Transactional
+    public void createProducts(List<ProductDTO> productDTOs) throws DataNotFoundException {
+        // Lấy tất cả category cần dùng trong 1 truy vấn
+        List<Long> categoryIds = productDTOs.stream()
+                .map(ProductDTO::getCategoryId)
+                .distinct()
+                .toList();
+        Map<Long, Category> categoriesById = new HashMap<>();
+        for (Category category : categoryRepository.findAllById(categoryIds)) {
+            categoriesById.put(category.getId(), category);
+        }
+        List<Product> newProducts = new ArrayList<>();
+        for (ProductDTO productDTO : productDTOs) {
+            Category existingCategory = categoriesById.get(productDTO.getCategoryId());
+            if (existingCategory == null) {
+                throw new DataNotFoundException(
+                        "Cannot find category with id: "+productDTO.getCategoryId());
+            }
+            newProducts.add(Product.builder()
+                    .name(productDTO.getName())
+                    .price(productDTO.getPrice())
+                    .thumbnail(productDTO.getThumbnail())
+                    .description(productDTO.getDescription())
+                    .category(existingCategory)
+                    .build());
+        }
+        productBatchRepository.insertAll(newProducts);
+        // Insert bằng JDBC nên ProductListener không chạy => tự xóa cache sau khi commit
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                productRedisService.clearCache();
+            }
+        });
+    }
+
     @Override
     public Product getProductById(long productId) throws Exception {
         Optional<Product> optionalProduct = productRepository.getDetailProduct(productId);
@@ -60,13 +111,88 @@ public class ProductService implements IProductService{
 
 
     @Override
+    @Transactional(readOnly = true)
     public Page<ProductResponse> getAllProducts(String keyword,
                                                 Long categoryId, PageRequest pageRequest) {
         // Lấy danh sách sản phẩm theo trang (page), giới hạn (limit), và categoryId (nếu có)
-        Page<Product> productsPage;
-        productsPage = productRepository.searchProducts(categoryId, keyword, pageRequest);
-        return productsPage.map(ProductResponse::fromProduct);
+        Page<ProductSummary> productsPage;
+        String fullTextQuery = FullTextUtils.toBooleanModeQuery(keyword);
+        if (fullTextQuery != null) {
+            // Có keyword => dùng FULLTEXT index. Giữ sort client yêu cầu,
+            // chỉ xếp theo độ liên quan khi không có sort
+            String likePattern = FullTextUtils.toLikePattern(keyword);
+            productsPage = pageRequest.getSort().isUnsorted()
+                    ? productRepository.searchProductsByFullText(categoryId, fullTextQuery, likePattern,
+                            pageRequest)
+                    : productRepository.searchProductsByFullTextSorted(categoryId, fullTextQuery, likePattern,
+                            PageRequest.of(pageRequest.getPageNumber(), pageRequest.getPageSize(),
+                                    toColumnSort(pageRequest.getSort())));
+        } else {
+            // LIKE không có độ liên quan => trang không sort vẫn xếp theo id để phân trang ổn định
+            productsPage = productRepository.searchProducts(categoryId, keyword,
+                    pageRequest.getSort().isUnsorted() ? pageRequest.withSort(Sort.by("id")) : pageRequest);
+        }
+        // 1 truy vấn trang + 1 count + 1 truy vấn ảnh, không phụ thuộc số sản phẩm trong trang
+        Map<Long, List<ProductImage>> productImages = findImagesByProducts(productsPage.getContent());
+        return productsPage.map(product -> ProductResponse.fromSummary(product,
+                productImages.getOrDefault(product.getId(), new ArrayList<>())));
     }
+    @Override
+    @Transactional(readOnly = true)
+    public List<ProductResponse> getProductsAfter(String keyword,
+                                                  Long categoryId, Long afterId, int limit) {
+        // Chỉ cần LIMIT, không OFFSET nên thời gian truy vấn không phụ thuộc vị trí trang
+        long after = afterId == null ? 0L : afterId;
+        String fullTextQuery = FullTextUtils.toBooleanModeQuery(keyword);
+        List<ProductSummary> products = fullTextQuery != null
+                ? productRepository.searchProductsAfterByFullText(categoryId, fullTextQuery,
+                        FullTextUtils.toLikePattern(keyword), after, PageRequest.of(0, limit))
+                : productRepository.searchProductsAfter(categoryId, keyword, after,
+                        PageRequest.of(0, limit));
+        Map<Long, List<ProductImage>> productImages = findImagesByProducts(products);
+        return products
+                .stream()
+                .map(product -> ProductResponse.fromSummary(product,
+                        productImages.getOrDefault(product.getId(), new ArrayList<>())))
+                .toList();
+    }
+
+    // Truy vấn FULLTEXT là native SQL => đổi tên thuộc tính entity sang tên cột, vd: createdAt => created_at
+    private static Sort toColumnSort(Sort sort) {
+        return Sort.by(sort.stream()
+                .map(order -> order.withProperty(
+                        order.getProperty().replaceAll("([a-z])([A-Z])", "$1_$2").toLowerCase(Locale.ROOT)))
+                .toList());
+    }
+
+    // Lấy ảnh của mọi sản phẩm trong trang bằng 1 truy vấn IN, nhóm theo productId
+    private Map<Long, List<ProductImage>> findImagesByProducts(List<ProductSummary> products) {
+        if (products.isEmpty()) {
+            return new HashMap<>();
+        }
+        List<Long> productIds = products.stream().map(ProductSummary::getId).toList();
+        Map<Long, List<ProductImage>> productImages = new HashMap<>();
+        for (ProductImageSummary image : productImageRepository.findSummariesByProductIds(productIds)) {
+            productImages
+                    .computeIfAbsent(image.getProductId(), id -> new ArrayList<>())
+                    .add(ProductImage.builder()
+                            .id(image.getId())
+                            .imageUrl(image.getImageUrl())
+                            .variantSizes(image.getVariantSizes())
+                            .build());
+        }
+        return productImages;
+    }
+
+    @Override
+    public long countProducts(String keyword, Long categoryId) {
+        String fullTextQuery = FullTextUtils.toBooleanModeQuery(keyword);
+        return fullTextQuery != null
+                ? productRepository.countProductsByFullText(categoryId, fullTextQuery,
+                        FullTextUtils.toLikePattern(keyword))
+                : productRepository.countProducts(categoryId, keyword);
+    }
+
     @Override
     @Transactional
     public Product updateProduct(
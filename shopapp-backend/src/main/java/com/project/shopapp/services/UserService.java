@@ -2,6 +2,7 @@ package com.project.shopapp.services;
 
 import com.project.shopapp.components.JwtTokenUtils;
 import com.project.shopapp.components.LocalizationUtils;
+import com.project.shopapp.components.PasswordHasher;
 import com.project.shopapp.dtos.UpdateUserDTO;
 import com.project.shopapp.dtos.UserDTO;
 import com.project.shopapp.exceptions.DataNotFoundException;
@@ -9,9 +10,11 @@ import com.project.shopapp.exceptions.DataNotFoundException;
 import com.project.shopapp.exceptions.PermissionDenyException;
 import com.project.shopapp.models.*;
 import com.project.shopapp.repositories.RoleRepository;
-import com.project.shopapp.repositories.TokenRepository;
 import com.project.shopapp.repositories.UserRepository;
+import com.project.shopapp.services.auth.IAuthCacheService;
+import com.project.shopapp.services.token.ITokenService;
 import com.project.shopapp.utils.MessageKeys;
+import io.jsonwebtoken.Claims;
 import lombok.RequiredArgsConstructor;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -22,6 +25,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import javax.swing.text.html.Option;
+import java.util.Date;
 import java.util.Optional;
 
 @RequiredArgsConstructor
@@ -29,11 +33,13 @@ import java.util.Optional;
 public class UserService implements IUserService{
     private final UserRepository userRepository;
     private final RoleRepository roleRepository;
-    private final TokenRepository tokenRepository;
+    private final ITokenService tokenService;
     private final PasswordEncoder passwordEncoder;
     private final JwtTokenUtils jwtTokenUtil;
     private final AuthenticationManager authenticationManager;
     private final LocalizationUtils localizationUtils;
+    private final IAuthCacheService authCacheService;
+    private final PasswordHasher passwordHasher;
     @Override
     @Transactional
     public User createUser(UserDTO userDTO) throws Exception {
@@ -66,7 +72,7 @@ public class UserService implements IUserService{
         // Kiểm tra nếu có accountId, không yêu cầu password
         if (userDTO.getFacebookAccountId() == 0 && userDTO.getGoogleAccountId() == 0) {
             String password = userDTO.getPassword();
-            String encodedPassword = passwordEncoder.encode(password);
+            String encodedPassword = passwordHasher.execute(() -> passwordEncoder.encode(password));
             newUser.setPassword(encodedPassword);
         }
         return userRepository.save(newUser);
@@ -84,13 +90,6 @@ public class UserService implements IUserService{
         }
         //return optionalUser.get();//muốn trả JWT token ?
         User existingUser = optionalUser.get();
-        //check password
-        if (existingUser.getFacebookAccountId() == 0
-                && existingUser.getGoogleAccountId() == 0) {
-            if(!passwordEncoder.matches(password, existingUser.getPassword())) {
-                throw new BadCredentialsException(localizationUtils.getLocalizedMessage(MessageKeys.WRONG_PHONE_PASSWORD));
-            }
-        }
 //        Optional<Role> optionalRole = roleRepository.findById(roleId);
 //        if(optionalRole.isEmpty() || !roleId.equals(existingUser.getRole().getId())) {
 //            throw new DataNotFoundException(localizationUtils.getLocalizedMessage(MessageKeys.ROLE_DOES_NOT_EXISTS));
@@ -104,7 +103,12 @@ public class UserService implements IUserService{
         );
 
         //authenticate with Java Spring security
-        authenticationManager.authenticate(authenticationToken);
+        //mật khẩu chỉ được kiểm tra (bcrypt) một lần ở đây, hash cũ được tự động mã hóa lại theo cost mới
+        try {
+            passwordHasher.execute(() -> authenticationManager.authenticate(authenticationToken));
+        } catch (BadCredentialsException e) {
+            throw new BadCredentialsException(localizationUtils.getLocalizedMessage(MessageKeys.WRONG_PHONE_PASSWORD));
+        }
         return jwtTokenUtil.generateToken(existingUser);
     }
     @Transactional
@@ -114,6 +118,9 @@ public class UserService implements IUserService{
         User existingUser = userRepository.findById(userId)
                 .orElseThrow(() -> new DataNotFoundException("User not found"));
 
+        // Xóa user khỏi cache đăng nhập (cả số điện thoại cũ và mới)
+        authCacheService.invalidateUser(existingUser.getPhoneNumber());
+
         // Check if the phone number is being changed and if it already exists for another user
         String newPhoneNumber = updatedUserDTO.getPhoneNumber();
         if (!existingUser.getPhoneNumber().equals(newPhoneNumber) &&
@@ -127,6 +134,7 @@ public class UserService implements IUserService{
         }
         if (newPhoneNumber != null) {
             existingUser.setPhoneNumber(newPhoneNumber);
+            authCacheService.invalidateUser(newPhoneNumber);
         }
         if (updatedUserDTO.getAddress() != null) {
             existingUser.setAddress(updatedUserDTO.getAddress());
@@ -148,7 +156,7 @@ public class UserService implements IUserService{
                 throw new DataNotFoundException("Password and retype password not the same");
             }
             String newPassword = updatedUserDTO.getPassword();
-            String encodedPassword = passwordEncoder.encode(newPassword);
+            String encodedPassword = passwordHasher.execute(() -> passwordEncoder.encode(newPassword));
             existingUser.setPassword(encodedPassword);
         }
         //existingUser.setRole(updatedRole);
@@ -158,10 +166,12 @@ public class UserService implements IUserService{
 
     @Override
     public User getUserDetailsFromToken(String token) throws Exception {
-        if(jwtTokenUtil.isTokenExpired(token)) {
+        // Claims đã được JwtTokenFilter xác thực trong request này sẽ được dùng lại
+        Claims claims = jwtTokenUtil.extractAllClaims(token);
+        if(claims.getExpiration().before(new Date())) {
             throw new Exception("Token is expired");
         }
-        String phoneNumber = jwtTokenUtil.extractPhoneNumber(token);
+        String phoneNumber = claims.getSubject();
         Optional<User> user = userRepository.findByPhoneNumber(phoneNumber);
 
         if (user.isPresent()) {
@@ -173,7 +183,10 @@ public class UserService implements IUserService{
 
     @Override
     public User getUserDetailsFromRefreshToken(String token) throws Exception {
-        Token refreshToken = tokenRepository.findByRefreshToken(token);
+        Token refreshToken = tokenService.findByRefreshToken(token);
+        if (refreshToken == null) {
+            throw new DataNotFoundException("Refresh token does not exist");
+        }
         return getUserDetailsFromToken(refreshToken.getToken());
     }
 }
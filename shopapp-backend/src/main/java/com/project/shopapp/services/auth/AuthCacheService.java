@@ -0,0 +1,128 @@
+package com.project.shopapp.services.auth;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.project.shopapp.utils.HashUtils;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+@Service
+@RequiredArgsConstructor
+public class AuthCacheService implements IAuthCacheService, MessageListener {
+    /**
+     * Cache trong JVM (TTL ngắn) cho bản chụp user đã đăng nhập (AuthPrincipal) và trạng thái token,
+     * để JwtTokenFilter không phải truy vấn DB ở mỗi request.
+     * Khi user/token thay đổi, message được publish qua Redis để mọi node cùng xóa cache
+     */
+    private final Cache<String, AuthPrincipal> principalCache;
+    private final Cache<String, Boolean> tokenStateCache;
+    private final RedisTemplate<String, String> redisTemplate;
+    // Tăng mỗi lần cache bị xóa, để không ghi kết quả đọc trước lúc xóa vào cache
+    private final AtomicLong invalidationEpoch = new AtomicLong();
+    private static final Logger logger = LoggerFactory.getLogger(AuthCacheService.class);
+
+    public static final String INVALIDATION_CHANNEL = "auth_cache_invalidation";
+    private static final String USER_MESSAGE_PREFIX = "user:";
+    private static final String TOKEN_MESSAGE_PREFIX = "token:";
+
+    @Override
+    public AuthPrincipal getPrincipal(String phoneNumber, Supplier<AuthPrincipal> loader) {
+        AuthPrincipal cached = principalCache.getIfPresent(phoneNumber);
+        if (cached != null) {
+            return cached;
+        }
+        long epoch = invalidationEpoch.get();
+        AuthPrincipal principal = loader.get();
+        if (invalidationEpoch.get() == epoch) {
+            principalCache.put(phoneNumber, principal);
+        }
+        return principal;
+    }
+
+    @Override
+    public boolean isTokenActive(String token, BooleanSupplier loader) {
+        String tokenKey = HashUtils.sha256Hex(token);
+        if (Boolean.TRUE.equals(tokenStateCache.getIfPresent(tokenKey))) {
+            return true;
+        }
+        long epoch = invalidationEpoch.get();
+        boolean active = loader.getAsBoolean();
+        // Không cache token không hợp lệ: token mới tạo sau đó vẫn được kiểm tra lại trong DB
+        if (active && invalidationEpoch.get() == epoch) {
+            tokenStateCache.put(tokenKey, Boolean.TRUE);
+        }
+        return active;
+    }
+
+    @Override
+    public void invalidateUser(String phoneNumber) {
+        if (phoneNumber == null) {
+            return;
+        }
+        invalidate(USER_MESSAGE_PREFIX + phoneNumber);
+    }
+
+    @Override
+    public void invalidateToken(String token) {
+        if (token == null) {
+            return;
+        }
+        // Chỉ gửi hash của token qua Redis, không gửi chính token
+        invalidate(TOKEN_MESSAGE_PREFIX + HashUtils.sha256Hex(token));
+    }
+
+    private void invalidate(String message) {
+        evict(message);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            publish(message);
+            return;
+        }
+        // Xóa lại sau commit: request khác có thể đã đọc dữ liệu cũ trước khi transaction commit
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                evict(message);
+                publish(message);
+            }
+        });
+    }
+
+    // Nhận message xóa cache từ các node khác (và từ chính node này)
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        evict(new String(message.getBody(), StandardCharsets.UTF_8));
+    }
+
+    private void evict(String invalidation) {
+        invalidationEpoch.incrementAndGet();
+        if (invalidation.startsWith(USER_MESSAGE_PREFIX)) {
+            principalCache.invalidate(invalidation.substring(USER_MESSAGE_PREFIX.length()));
+        } else if (invalidation.startsWith(TOKEN_MESSAGE_PREFIX)) {
+            tokenStateCache.invalidate(invalidation.substring(TOKEN_MESSAGE_PREFIX.length()));
+        } else {
+            logger.warn("Unknown auth cache invalidation message: {}", invalidation);
+            principalCache.invalidateAll();
+            tokenStateCache.invalidateAll();
+        }
+    }
+
+    private void publish(String message) {
+        try {
+            redisTemplate.convertAndSend(INVALIDATION_CHANNEL, message);
+        } catch (Exception e) {
+            // Redis lỗi => các node khác chỉ thấy thay đổi sau khi cache hết TTL
+            logger.error("Cannot publish auth cache invalidation: {}", e.getMessage());
+        }
+    }
+}
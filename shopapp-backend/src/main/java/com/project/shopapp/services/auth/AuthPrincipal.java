@@ -0,0 +1,75 @@
+package com.project.shopapp.services.auth;
+
+import com.project.shopapp.models.User;
+import com.project.shopapp.utils.HashUtils;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Bản chụp bất biến của user đã đăng nhập, được cache thay cho entity User:
+ * không có lazy loading ngoài session, không bị request khác sửa chung một đối tượng.
+ * passwordHashVersion là SHA-256 của mật khẩu đã mã hóa, đổi khi user đổi mật khẩu
+ * mà không phải giữ chính mật khẩu trong cache
+ */
+public record AuthPrincipal(
+        Long id,
+        String phoneNumber,
+        String roleName,
+        boolean active,
+        String passwordHashVersion
+) implements UserDetails {
+
+    public static AuthPrincipal from(User user) {
+        return new AuthPrincipal(
+                user.getId(),
+                user.getPhoneNumber(),
+                user.getRole() == null ? null : user.getRole().getName(),
+                user.isActive(),
+                HashUtils.sha256Hex(user.getPassword())
+        );
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        if (roleName == null) {
+            return List.of();
+        }
+        return List.of(new SimpleGrantedAuthority("ROLE_" + roleName.toUpperCase()));
+    }
+
+    // Token đã được kiểm tra, principal trong SecurityContext không cần mật khẩu
+    @Override
+    public String getPassword() {
+        return null;
+    }
+
+    @Override
+    public String getUsername() {
+        return phoneNumber;
+    }
+
+    @Override
+    public boolean isAccountNonExpired() {
+        return true;
+    }
+
+    @Override
+    public boolean isAccountNonLocked() {
+        return true;
+    }
+
+    @Override
+    public boolean isCredentialsNonExpired() {
+        return true;
+    }
+
+    // Giống User.isEnabled: việc chặn user không active do UserService.login đảm nhận
+    @Override
+    public boolean isEnabled() {
+        return true;
+    }
+}
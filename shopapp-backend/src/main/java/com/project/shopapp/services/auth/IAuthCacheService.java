@@ -0,0 +1,18 @@
+package com.project.shopapp.services.auth;
+
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+public interface IAuthCacheService {
+    // cached principal snapshot for this phone number, loaded with loader on a miss
+    AuthPrincipal getPrincipal(String phoneNumber, Supplier<AuthPrincipal> loader);
+
+    // whether the access token exists and is not revoked; only active tokens are cached
+    boolean isTokenActive(String token, BooleanSupplier loader);
+
+    // drop the cached principal on every node (user update, role change)
+    void invalidateUser(String phoneNumber);
+
+    // drop the cached token state on every node (logout, revocation, refresh, deletion)
+    void invalidateToken(String token);
+}
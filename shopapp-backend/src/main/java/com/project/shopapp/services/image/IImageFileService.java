@@ -0,0 +1,15 @@
+package com.project.shopapp.services.image;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+
+public interface IImageFileService {
+    // null nếu không có file (hoặc tên file trỏ ra ngoài thư mục upload)
+    ImageFile getImage(String imageName);
+
+    // ghi ảnh ra response: 304, Range, sendfile; immutable = cache lâu dài ở trình duyệt/CDN
+    void writeImage(ImageFile image, boolean immutable,
+                    HttpServletRequest request, HttpServletResponse response) throws IOException;
+}
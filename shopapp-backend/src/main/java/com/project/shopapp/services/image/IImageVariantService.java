@@ -0,0 +1,11 @@
+package com.project.shopapp.services.image;
+
+import com.project.shopapp.models.ProductImage;
+
+public interface IImageVariantService {
+    // tạo các ảnh thu nhỏ ở background, ghi lại kích thước đã tạo vào ProductImage
+    void generateVariantsAsync(ProductImage productImage);
+
+    // tên file (trong thư mục upload) của ảnh thu nhỏ nhỏ nhất >= size, null nếu không có kích thước phù hợp
+    String resolveVariantName(String imageName, int size);
+}
@@ -0,0 +1,17 @@
+package com.project.shopapp.services.image;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.nio.file.Path;
+
+// Thông tin file ảnh được đọc một lần rồi cache, file upload không bao giờ bị ghi đè (tên có UUID)
+@Getter
+@AllArgsConstructor
+public class ImageFile {
+    private final Path path;
+    private final String contentType;
+    private final long length;
+    private final long lastModified;
+    private final String etag;
+}
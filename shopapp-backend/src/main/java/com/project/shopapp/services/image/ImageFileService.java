@@ -0,0 +1,170 @@
+package com.project.shopapp.services.image;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@Service
+@RequiredArgsConstructor
+public class ImageFileService implements IImageFileService {
+    /**
+     * Phục vụ ảnh sản phẩm:
+     * - content type, kích thước, ETag được tính một lần rồi cache
+     * - hỗ trợ If-None-Match/If-Modified-Since (304) và Range (206)
+     * - nội dung được gửi bằng sendfile của Tomcat nếu có, nếu không thì FileChannel.transferTo
+     */
+    private final Cache<String, ImageFile> imageFileCache;
+
+    @Value("${upload.dir}")
+    private String uploadDir;
+
+    // Tomcat (NIO connector) tự gửi file bằng sendfile sau khi servlet trả về
+    private static final String SENDFILE_SUPPORT_ATTRIBUTE = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME_ATTRIBUTE = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START_ATTRIBUTE = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END_ATTRIBUTE = "org.apache.tomcat.sendfile.end";
+
+    private static final String IMMUTABLE_CACHE_CONTROL =
+            CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().immutable().getHeaderValue();
+    private static final String NO_CACHE_CONTROL = CacheControl.noCache().getHeaderValue();
+
+    @Override
+    public ImageFile getImage(String imageName) {
+        ImageFile cached = imageFileCache.getIfPresent(imageName);
+        if (cached != null) {
+            return cached;
+        }
+        Path baseDir = Paths.get(uploadDir).toAbsolutePath().normalize();
+        Path imagePath = baseDir.resolve(imageName).normalize();
+        if (!imagePath.startsWith(baseDir) || !Files.isRegularFile(imagePath) || !Files.isReadable(imagePath)) {
+            // Không cache ảnh chưa có, để ảnh vừa upload xong được thấy ngay
+            return null;
+        }
+        try {
+            long length = Files.size(imagePath);
+            long lastModified = Files.getLastModifiedTime(imagePath).toMillis();
+            ImageFile image = new ImageFile(
+                    imagePath,
+                    detectContentType(imagePath),
+                    length,
+                    lastModified,
+                    "\"" + Long.toHexString(length) + "-" + Long.toHexString(lastModified) + "\""
+            );
+            imageFileCache.put(imageName, image);
+            return image;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public void writeImage(ImageFile image, boolean immutable,
+                           HttpServletRequest request, HttpServletResponse response) throws IOException {
+        response.setHeader(HttpHeaders.CACHE_CONTROL, immutable ? IMMUTABLE_CACHE_CONTROL : NO_CACHE_CONTROL);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        // Đặt ETag, Last-Modified và trả 304 nếu trình duyệt đã có bản mới nhất
+        if (new ServletWebRequest(request, response).checkNotModified(image.getEtag(), image.getLastModified())) {
+            return;
+        }
+        long length = image.getLength();
+        long start = 0;
+        long end = length - 1;
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        if (rangeHeader != null && length > 0 && isIfRangeSatisfied(request, image)) {
+            try {
+                List<HttpRange> ranges = HttpRange.parseRanges(rangeHeader);
+                // Nhiều range (multipart/byteranges) hiếm gặp với ảnh => trả cả file
+                if (ranges.size() == 1) {
+                    start = ranges.get(0).getRangeStart(length);
+                    end = ranges.get(0).getRangeEnd(length);
+                    // parseRanges không so với độ dài file, vd: "bytes=50-60" với file 20 byte
+                    if (start >= length || start > end) {
+                        throw new IllegalArgumentException("Range not satisfiable: " + rangeHeader);
+                    }
+                    response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                    response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+                }
+            } catch (IllegalArgumentException e) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                return;
+            }
+        }
+        long count = end - start + 1;
+        response.setContentType(image.getContentType());
+        response.setContentLengthLong(count);
+        if ("HEAD".equalsIgnoreCase(request.getMethod()) || count <= 0) {
+            return;
+        }
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT_ATTRIBUTE))) {
+            request.setAttribute(SENDFILE_FILENAME_ATTRIBUTE, image.getPath().toString());
+            request.setAttribute(SENDFILE_START_ATTRIBUTE, start);
+            request.setAttribute(SENDFILE_END_ATTRIBUTE, end + 1);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(image.getPath(), StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            while (count > 0) {
+                long transferred = channel.transferTo(position, count, out);
+                if (transferred <= 0) {
+                    break;
+                }
+                position += transferred;
+                count -= transferred;
+            }
+        }
+    }
+
+    // If-Range: chỉ trả một phần nếu file vẫn là bản mà client đang có
+    private boolean isIfRangeSatisfied(HttpServletRequest request, ImageFile image) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            return ifRange.equals(image.getEtag());
+        }
+        try {
+            return request.getDateHeader(HttpHeaders.IF_RANGE) / 1000 == image.getLastModified() / 1000;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private static String detectContentType(Path imagePath) {
+        MediaType mediaType = MediaTypeFactory.getMediaType(imagePath.getFileName().toString()).orElse(null);
+        if (mediaType != null) {
+            return mediaType.toString();
+        }
+        try {
+            String probed = Files.probeContentType(imagePath);
+            if (probed != null) {
+                return probed;
+            }
+        } catch (IOException ignored) {
+            // dùng giá trị mặc định bên dưới
+        }
+        return MediaType.IMAGE_JPEG_VALUE;
+    }
+}
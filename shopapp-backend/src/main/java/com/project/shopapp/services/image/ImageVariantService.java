@@ -0,0 +1,193 @@
+package com.project.shopapp.services.image;
+
+import com.project.shopapp.models.ProductImage;
+import com.project.shopapp.repositories.ProductImageRepository;
+import com.project.shopapp.services.product.IProductRedisService;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@Service
+@RequiredArgsConstructor
+public class ImageVariantService implements IImageVariantService {
+    /**
+     * Sau khi upload, ảnh gốc (tối đa 10MB) được thu nhỏ và nén lại thành JPEG ở các kích thước
+     * image.variants.sizes, trên pool có giới hạn.
+     * Ảnh thu nhỏ nằm ở {upload.dir}/variants/{size}/{tên ảnh gốc}.jpg, không bao giờ bị ghi đè.
+     * File nhỏ vẫn có thể giải nén ra ảnh rất lớn (decompression bomb): kích thước được đọc từ header trước,
+     * ảnh quá image.variants.max-pixels bị bỏ qua, ảnh lớn được giải mã với subsampling
+     */
+    private static final Logger logger = LoggerFactory.getLogger(ImageVariantService.class);
+    private static final String VARIANT_DIR = "variants";
+    private static final String VARIANT_EXTENSION = ".jpg";
+
+    private final ProductImageRepository productImageRepository;
+    private final ThreadPoolTaskExecutor imageVariantExecutor;
+    private final IProductRedisService productRedisService;
+
+    @Value("${upload.dir}")
+    private String uploadDir;
+
+    // tăng dần, vd: 64,256,1024
+    @Value("${image.variants.sizes:64,256,1024}")
+    private int[] variantSizes;
+
+    @Value("${image.variants.jpeg-quality:0.8}")
+    private float jpegQuality;
+
+    // Số pixel tối đa (rộng x cao theo header) của ảnh gốc được tạo ảnh thu nhỏ
+    @Value("${image.variants.max-pixels:100000000}")
+    private long maxPixels;
+
+    @Override
+    public void generateVariantsAsync(ProductImage productImage) {
+        Long productImageId = productImage.getId();
+        String imageName = productImage.getImageUrl();
+        Long categoryId = productImage.getProduct() != null && productImage.getProduct().getCategory() != null
+                ? productImage.getProduct().getCategory().getId()
+                : null;
+        try {
+            imageVariantExecutor.execute(() -> generateVariants(productImageId, imageName, categoryId));
+        } catch (TaskRejectedException e) {
+            // Pool đầy => ảnh vẫn được phục vụ bằng bản gốc
+            logger.warn("Image variant queue is full, skipping variants for {}", imageName);
+        }
+    }
+
+    @Override
+    public String resolveVariantName(String imageName, int size) {
+        for (int variantSize : variantSizes) {
+            if (variantSize >= size) {
+                return getVariantName(imageName, variantSize);
+            }
+        }
+        return null;
+    }
+
+    private void generateVariants(Long productImageId, String imageName, Long categoryId) {
+        try {
+            BufferedImage original = readImage(Paths.get(uploadDir, imageName), imageName);
+            if (original == null) {
+                return;
+            }
+            int longestSide = Math.max(original.getWidth(), original.getHeight());
+            List<Integer> generatedSizes = new ArrayList<>();
+            // Từ lớn đến nhỏ, mỗi bản được thu nhỏ từ bản lớn hơn liền trước cho nhanh
+            BufferedImage source = original;
+            for (int i = variantSizes.length - 1; i >= 0; i--) {
+                int size = variantSizes[i];
+                // Ảnh gốc đã nhỏ hơn => dùng bản nén lại ở kích thước gốc
+                source = resize(source, Math.min(size, longestSide));
+                writeJpeg(source, Paths.get(uploadDir, getVariantName(imageName, size)));
+                generatedSizes.add(0, size);
+            }
+            productImageRepository.updateVariantSizes(productImageId,
+                    generatedSizes.stream().map(String::valueOf).collect(Collectors.joining(",")));
+            // variant_sizes nằm trong ProductResponse => bỏ các trang danh sách đã cache của category
+            productRedisService.invalidateCategory(categoryId);
+        } catch (Exception e) {
+            logger.error("Cannot generate variants for {}: {}", imageName, e.getMessage());
+        }
+    }
+
+    // Đọc rộng x cao từ header trước khi giải mã. Ảnh lớn hơn bản thu nhỏ lớn nhất được giải mã với
+    // subsampling (chỉ lấy 1 trên n pixel mỗi chiều) => ảnh trong bộ nhớ luôn nhỏ hơn 2 lần bản lớn nhất
+    private BufferedImage readImage(Path file, String imageName) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(file.toFile())) {
+            Iterator<ImageReader> readers = input == null ? null : ImageIO.getImageReaders(input);
+            if (readers == null || !readers.hasNext()) {
+                logger.warn("Cannot decode image {}, no variants generated", imageName);
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > maxPixels) {
+                    logger.warn("Image {} is {}x{} pixels, over the limit, no variants generated",
+                            imageName, width, height);
+                    return null;
+                }
+                int largestVariantSize = variantSizes[variantSizes.length - 1];
+                int subsampling = Math.max(1, Math.max(width, height) / largestVariantSize);
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private static String getVariantName(String imageName, int size) {
+        return VARIANT_DIR + "/" + size + "/" + imageName + VARIANT_EXTENSION;
+    }
+
+    // Thu nhỏ để cạnh dài nhất = targetSize, giữ tỉ lệ, nền trắng cho ảnh trong suốt
+    private static BufferedImage resize(BufferedImage source, int targetSize) {
+        int longestSide = Math.max(source.getWidth(), source.getHeight());
+        double scale = Math.min(1.0, (double) targetSize / longestSide);
+        int width = Math.max(1, (int) Math.round(source.getWidth() * scale));
+        int height = Math.max(1, (int) Math.round(source.getHeight() * scale));
+        BufferedImage resized = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = resized.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.setColor(Color.WHITE);
+            graphics.fillRect(0, 0, width, height);
+            graphics.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return resized;
+    }
+
+    // Ghi ra file tạm rồi đổi tên, để request không đọc phải file đang ghi dở
+    private void writeJpeg(BufferedImage image, Path destination) throws IOException {
+        Files.createDirectories(destination.getParent());
+        Path tempFile = Files.createTempFile(destination.getParent(), "variant-", ".tmp");
+        try {
+            ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(jpegQuality);
+            try (ImageOutputStream output = ImageIO.createImageOutputStream(tempFile.toFile())) {
+                writer.setOutput(output);
+                writer.write(null, new IIOImage(image, null, null), param);
+            } finally {
+                writer.dispose();
+            }
+            Files.move(tempFile, destination, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+}
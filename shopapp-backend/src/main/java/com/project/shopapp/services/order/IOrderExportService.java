@@ -0,0 +1,13 @@
+package com.project.shopapp.services.order;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.time.LocalDate;
+
+public interface IOrderExportService {
+    // CSV: mỗi dòng chi tiết 1 dòng, thông tin đơn hàng lặp lại; from/to null = không giới hạn
+    void exportCsv(LocalDate from, LocalDate to, Writer writer) throws IOException;
+
+    // NDJSON: mỗi đơn hàng 1 dòng JSON, chi tiết nằm trong order_details
+    void exportNdjson(LocalDate from, LocalDate to, Writer writer) throws IOException;
+}
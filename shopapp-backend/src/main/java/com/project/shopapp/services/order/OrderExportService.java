@@ -0,0 +1,185 @@
+package com.project.shopapp.services.order;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.project.shopapp.repositories.OrderExportRepository;
+import com.project.shopapp.repositories.OrderExportRow;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Ghi từng dòng ra response ngay khi đọc được từ cursor, flush mỗi flushRows dòng.
+ * Bộ nhớ dùng không phụ thuộc số đơn hàng: chỉ giữ dòng hiện tại (CSV)
+ * hoặc chi tiết của đơn hàng hiện tại (NDJSON)
+ */
+@Service
+@RequiredArgsConstructor
+public class OrderExportService implements IOrderExportService {
+    private static final String[] CSV_HEADER = {
+            "order_id", "user_id", "fullname", "email", "phone_number", "address", "note",
+            "order_date", "status", "total_money", "shipping_method", "shipping_address",
+            "shipping_date", "tracking_number", "payment_method",
+            "order_detail_id", "product_id", "price", "number_of_products", "detail_total_money", "color"
+    };
+    // Ký tự đầu khiến Excel/Google Sheets coi giá trị là công thức (CSV injection)
+    private static final String FORMULA_PREFIXES = "=+-@\t\r";
+
+    @Value("${order.export.flush-rows:500}")
+    private int flushRows;
+
+    private final OrderExportRepository orderExportRepository;
+    private final ObjectMapper objectMapper;
+
+    @PostConstruct
+    void validateConfiguration() {
+        if (flushRows < 1) {
+            throw new IllegalStateException("order.export.flush-rows must be > 0, got " + flushRows);
+        }
+    }
+
+    @Override
+    public void exportCsv(LocalDate from, LocalDate to, Writer writer) throws IOException {
+        writeCsvLine(writer, CSV_HEADER);
+        streamRows(from, to, writer, row -> {
+            try {
+                writeCsvLine(writer, new Object[]{
+                        row.id(), row.userId(), row.fullName(), row.email(), row.phoneNumber(),
+                        row.address(), row.note(), row.orderDate(), row.status(), row.totalMoney(),
+                        row.shippingMethod(), row.shippingAddress(), row.shippingDate(),
+                        row.trackingNumber(), row.paymentMethod(),
+                        row.detailId(), row.productId(), row.price(), row.numberOfProducts(),
+                        row.detailTotalMoney(), row.color()
+                });
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        writer.flush();
+    }
+
+    @Override
+    public void exportNdjson(LocalDate from, LocalDate to, Writer writer) throws IOException {
+        // Các dòng của cùng một đơn hàng đứng liền nhau => đổi order id thì ghi đơn hàng trước đó
+        OrderExportRow[] currentOrder = new OrderExportRow[1];
+        List<Map<String, Object>> currentDetails = new ArrayList<>();
+        streamRows(from, to, writer, row -> {
+            try {
+                if (currentOrder[0] != null && !currentOrder[0].id().equals(row.id())) {
+                    writeJsonLine(writer, currentOrder[0], currentDetails);
+                    currentDetails.clear();
+                }
+                currentOrder[0] = row;
+                if (row.detailId() != null) {
+                    currentDetails.add(toDetailJson(row));
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        if (currentOrder[0] != null) {
+            writeJsonLine(writer, currentOrder[0], currentDetails);
+        }
+        writer.flush();
+    }
+
+    private void streamRows(LocalDate from, LocalDate to, Writer writer,
+                            Consumer<OrderExportRow> rowWriter) throws IOException {
+        int[] rowCount = new int[1];
+        try {
+            orderExportRepository.streamOrderRows(from, to, row -> {
+                rowWriter.accept(row);
+                if (++rowCount[0] % flushRows == 0) {
+                    try {
+                        writer.flush();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+            });
+        } catch (UncheckedIOException e) {
+            // Client ngắt kết nối giữa chừng => dừng đọc cursor và trả lỗi IO ban đầu
+            throw e.getCause();
+        }
+    }
+
+    private void writeJsonLine(Writer writer, OrderExportRow order,
+                               List<Map<String, Object>> orderDetails) throws IOException {
+        // Cùng tên trường với OrderResponse
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("id", order.id());
+        json.put("user_id", order.userId());
+        json.put("fullname", order.fullName());
+        json.put("phone_number", order.phoneNumber());
+        json.put("email", order.email());
+        json.put("address", order.address());
+        json.put("note", order.note());
+        json.put("order_date", order.orderDate());
+        json.put("status", order.status());
+        json.put("total_money", order.totalMoney());
+        json.put("shipping_method", order.shippingMethod());
+        json.put("shipping_address", order.shippingAddress());
+        json.put("shipping_date", order.shippingDate());
+        json.put("tracking_number", order.trackingNumber());
+        json.put("payment_method", order.paymentMethod());
+        json.put("order_details", orderDetails);
+        writer.write(objectMapper.writeValueAsString(json));
+        writer.write('\n');
+    }
+
+    // Cùng tên trường với OrderDetailResponse
+    private static Map<String, Object> toDetailJson(OrderExportRow row) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("id", row.detailId());
+        json.put("product_id", row.productId());
+        json.put("price", row.price());
+        json.put("number_of_products", row.numberOfProducts());
+        json.put("total_money", row.detailTotalMoney());
+        json.put("color", row.color());
+        return json;
+    }
+
+    private static void writeCsvLine(Writer writer, Object[] values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writeCsvValue(writer, values[i]);
+        }
+        writer.write("\r\n");
+    }
+
+    // RFC 4180: giá trị có dấu phẩy, nháy kép hoặc xuống dòng thì bọc trong nháy kép, nháy kép nhân đôi.
+    // Chuỗi bắt đầu bằng = + - @ tab CR (fullname, note, address do khách nhập) được thêm ' ở đầu
+    // để bảng tính hiển thị như văn bản thay vì chạy công thức; số (id, tiền) được ghi nguyên
+    private static void writeCsvValue(Writer writer, Object value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        String text = value.toString();
+        boolean formula = value instanceof CharSequence
+                && !text.isEmpty()
+                && FORMULA_PREFIXES.indexOf(text.charAt(0)) >= 0;
+        if (formula) {
+            text = "'" + text;
+        }
+        if (!formula && text.indexOf(',') < 0 && text.indexOf('"') < 0
+                && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            writer.write(text);
+            return;
+        }
+        writer.write('"');
+        writer.write(text.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
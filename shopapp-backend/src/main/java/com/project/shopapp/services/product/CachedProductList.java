@@ -0,0 +1,27 @@
+package com.project.shopapp.services.product;
+
+import lombok.Getter;
+import org.springframework.util.DigestUtils;
+
+/**
+ * Một trang ProductListResponse đã được serialize sẵn thành JSON,
+ * controller ghi thẳng body ra response mà không cần Jackson đọc/ghi lại
+ */
+@Getter
+public class CachedProductList {
+    private final byte[] body;
+    // ETag tính một lần khi tạo, dùng cho conditional GET (If-None-Match)
+    private final String etag;
+    // Sau thời điểm này (soft TTL) trang vẫn được trả về nhưng sẽ được tải lại ở background
+    private final long softExpiresAt;
+
+    public CachedProductList(byte[] body, long softExpiresAt) {
+        this.body = body;
+        this.etag = "\"" + DigestUtils.md5DigestAsHex(body) + "\"";
+        this.softExpiresAt = softExpiresAt;
+    }
+
+    public boolean isStale() {
+        return System.currentTimeMillis() >= softExpiresAt;
+    }
+}
@@ -1,30 +1,26 @@
 package com.project.shopapp.services.product;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.project.shopapp.responses.ProductResponse;
+import com.project.shopapp.responses.ProductListResponse;
 import org.springframework.data.domain.PageRequest;
 
-import java.util.List;
+import java.util.function.Supplier;
 
 public interface IProductRedisService {
-    // clear cached data in redis
+    // clear every cached product page (namespace only, other redis data is kept)
     void clearCache();
 
-    List<ProductResponse> getAllProducts(
-            String keyword,
-            Long categoryId,
-            PageRequest pageRequest
-    ) throws JsonProcessingException;
-
-    Long countAllProducts(
-            String keyword,
-            Long categoryId,
-            PageRequest pageRequest) throws JsonProcessingException ;
+    // clear cached pages which may contain products of this category
+    void invalidateCategory(Long categoryId);
 
-    void saveAllProductsToCache(
-            List<ProductResponse> productResponses,
+    // cached, already serialized ProductListResponse body; on a cache miss only one caller
+    // per key and node runs the loader, the others in that node wait for its result.
+    // Only the node holding the redis lock loads and writes the page, other nodes poll redis briefly
+    // (product.cache.lock-wait) for it and load it themselves, without writing, if it does not appear
+    CachedProductList getProductList(
             String keyword,
             Long categoryId,
-            PageRequest pageRequest
+            PageRequest pageRequest,
+            Supplier<ProductListResponse> loader
     ) throws JsonProcessingException;
 }
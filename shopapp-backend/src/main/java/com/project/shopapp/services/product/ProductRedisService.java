@@ -1,77 +1,392 @@
 package com.project.shopapp.services.product;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.project.shopapp.responses.ProductResponse;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.project.shopapp.responses.ProductListResponse;
 import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
 import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
-public class ProductRedisService implements IProductRedisService {
+public class ProductRedisService implements IProductRedisService, MessageListener {
     /**
      * RedisTemplate: Lớp này cung cấp các phương thức để thao tác với Redis
      * ObjectMapper: Lớp này cung cấp các phương thức để chuyển đổi giữa các đối tượng Java và các chuỗi JSON
-     *
+     * productLocalCache: cache L1 trong JVM (Caffeine), đứng trước Redis
      */
     private final RedisTemplate<String, String> redisTemplate;
     private final ObjectMapper redisObjectMapper;
+    private final Cache<String, CachedProductList> productLocalCache;
+    // Tăng mỗi lần cache L1 bị xóa, để không ghi dữ liệu đọc trước lúc xóa vào L1
+    private final AtomicLong localCacheEpoch = new AtomicLong();
+    // Các khóa đang được tải trong node này (single-flight)
+    private final ConcurrentMap<String, CompletableFuture<CachedProductList>> inFlightLoads = new ConcurrentHashMap<>();
+    // Các khóa (query key) đang được làm mới ở background trong node này
+    private final Set<String> refreshingKeys = ConcurrentHashMap.newKeySet();
+    private final Executor productCacheRefreshExecutor;
+
+    // Sau soft TTL: vẫn trả dữ liệu cũ ngay, đồng thời tải lại ở background (stale-while-revalidate)
+    @Value("${product.cache.soft-ttl:60s}")
+    private Duration softTtl;
+
+    // Sau hard TTL: Redis tự xóa khóa, giới hạn bộ nhớ Redis
+    @Value("${product.cache.hard-ttl:10m}")
+    private Duration hardTtl;
+
+    // Node không lấy được lock chờ tối đa chừng này để node giữ lock ghi trang vào Redis, rồi mới tự truy vấn DB
+    @Value("${product.cache.lock-wait:200ms}")
+    private Duration lockWait;
+    private static final Logger logger = LoggerFactory.getLogger(ProductRedisService.class);
+
+    // Kênh pub/sub để mọi node xóa cache L1 khi sản phẩm thay đổi
+    public static final String INVALIDATION_CHANNEL = "product_cache_invalidation";
+    // Nội dung message khi xóa toàn bộ cache, còn lại message là categoryId
+    private static final String INVALIDATE_ALL_MESSAGE = "*";
+
+    private static final String KEY_PREFIX = "all_products";
+    // Giá trị của các khóa này là body JSON hoàn chỉnh của ProductListResponse
+    private static final String PAGE_KEY_PREFIX = KEY_PREFIX + ":page";
+    // Bộ đếm thế hệ (generation) toàn cục, tăng lên khi cần bỏ toàn bộ cache sản phẩm
+    private static final String GLOBAL_GENERATION_KEY = KEY_PREFIX + ":gen:global";
+    // Bộ đếm thế hệ theo category, category 0 = danh sách tất cả sản phẩm
+    private static final String CATEGORY_GENERATION_KEY = KEY_PREFIX + ":gen:%d";
+    // Lock (lease) giữa các node khi tải 1 khóa từ DB
+    private static final String LOCK_KEY_SUFFIX = ":lock";
+    private static final Duration LOCK_TTL = Duration.ofSeconds(10);
+    // Khoảng cách giữa 2 lần đọc lại Redis khi chờ node giữ lock
+    private static final Duration LOCK_POLL_INTERVAL = Duration.ofMillis(20);
+    // Chỉ xóa lock nếu vẫn là lock của mình (lock có thể đã hết hạn và thuộc node khác)
+    private static final RedisScript<Long> RELEASE_LOCK_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+            Long.class);
+    // Giá trị lưu trong Redis: "<softExpiresAt>|<json>"
+    private static final char VALUE_SEPARATOR = '|';
+    // Keyword dài hơn giá trị này sẽ được hash để khóa luôn ngắn gọn
+    private static final int MAX_PLAIN_KEYWORD_LENGTH = 32;
+
+    private static long normalizeCategoryId(Long categoryId) {
+        return categoryId == null ? 0L : categoryId;
+    }
+
+    // Hàm này tạo phần khóa mô tả truy vấn: category, keyword, sort, page, size
+    // Mọi tham số của searchProducts đều có trong khóa để các truy vấn khác nhau không dùng chung 1 slot
+    private String getQueryKeyFrom(String keyword,
+                                   Long categoryId,
+                                   PageRequest pageRequest) {
+        return String.format("c%d:%s:%s:%d:%d",
+                normalizeCategoryId(categoryId),
+                getKeywordKey(keyword),
+                getSortKey(pageRequest.getSort()),
+                pageRequest.getPageNumber(),
+                pageRequest.getPageSize());
+    }
+
+    // Keyword được trim + lowercase (MySQL collation *_ci không phân biệt hoa thường).
+    // Keyword ngắn chỉ gồm chữ/số được giữ nguyên, còn lại (dài, có dấu cách, ký tự ':'...) được hash md5
+    private static String getKeywordKey(String keyword) {
+        String normalized = keyword == null ? "" : keyword.trim().toLowerCase(Locale.ROOT);
+        if (normalized.isEmpty()) {
+            return "-";
+        }
+        if (normalized.length() <= MAX_PLAIN_KEYWORD_LENGTH
+                && normalized.chars().allMatch(Character::isLetterOrDigit)) {
+            return "k" + normalized;
+        }
+        return "h" + DigestUtils.md5DigestAsHex(normalized.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // vd: Sort.by("id").ascending() => "id.ASC"
+    private static String getSortKey(Sort sort) {
+        if (sort.isUnsorted()) {
+            return "unsorted";
+        }
+        return sort.stream()
+                .map(order -> order.getProperty() + "." + order.getDirection()
+                        + (order.isIgnoreCase() ? ".i" : ""))
+                .collect(Collectors.joining(","));
+    }
 
     // Hàm này tạo ra khóa (key) từ các tham số đầu vào
     private String getKeyFrom(String keyword,
                               Long categoryId,
                               PageRequest pageRequest) {
-        int pageNumber = pageRequest.getPageNumber();
-        int pageSize = pageRequest.getPageSize();
-        Sort.Order order = pageRequest.getSort().getOrderFor("id");
-        String sortDirection = (order != null && order.getDirection() == Sort.Direction.ASC) ? "ASC" : "DESC";
-        return String.format("all_products:%d:%d:%s", pageNumber, pageSize, sortDirection);
+        long category = normalizeCategoryId(categoryId);
+        // Đọc 2 bộ đếm trong 1 lần gọi Redis, key cũ sẽ không bao giờ được đọc lại khi bộ đếm tăng
+        List<String> generations = redisTemplate.opsForValue().multiGet(List.of(
+                GLOBAL_GENERATION_KEY,
+                String.format(CATEGORY_GENERATION_KEY, category)));
+        String globalGeneration = generations != null && generations.get(0) != null ? generations.get(0) : "0";
+        String categoryGeneration = generations != null && generations.get(1) != null ? generations.get(1) : "0";
+        return String.format("%s:v%s:g%s:%s",
+                PAGE_KEY_PREFIX, globalGeneration, categoryGeneration,
+                getQueryKeyFrom(keyword, categoryId, pageRequest));
         /*
         {
-            "all_products:1:10:asc": "list of products object"
+            "all_products:page:v0:g5:c2:kiphone:id.ASC:1:10": "ProductListResponse json"
         }
         * */
     }
 
-    // Hàm này xóa toàn bộ cache trong Redis
+    // Hàm này bỏ toàn bộ cache sản phẩm (chỉ trong namespace all_products, không flushAll Redis)
     @Override
     public void clearCache() {
-        redisTemplate.getConnectionFactory().getConnection().flushAll();
+        redisTemplate.opsForValue().increment(GLOBAL_GENERATION_KEY);
+        evictLocalCache(INVALIDATE_ALL_MESSAGE);
+        redisTemplate.convertAndSend(INVALIDATION_CHANNEL, INVALIDATE_ALL_MESSAGE);
     }
 
-    // Hàm này lấy tất cả sản phẩm từ cache Redis
+    // Hàm này chỉ bỏ các trang có thể chứa sản phẩm thuộc categoryId:
+    // các trang của category đó và các trang "tất cả sản phẩm" (category 0)
     @Override
-    public List<ProductResponse> getAllProducts(String keyword,
-                                                Long categoryId,
-                                                PageRequest pageRequest) throws JsonProcessingException {
+    public void invalidateCategory(Long categoryId) {
+        long category = normalizeCategoryId(categoryId);
+        if (category != 0L) {
+            redisTemplate.opsForValue().increment(String.format(CATEGORY_GENERATION_KEY, category));
+        }
+        redisTemplate.opsForValue().increment(String.format(CATEGORY_GENERATION_KEY, 0L));
+        evictLocalCache(String.valueOf(category));
+        redisTemplate.convertAndSend(INVALIDATION_CHANNEL, String.valueOf(category));
+    }
 
-        String key = this.getKeyFrom(keyword, categoryId, pageRequest);
-        String json = redisTemplate.opsForValue().get(key);
-        // Nếu json không null, chuyển đổi json thành danh sách ProductResponse, ngược lại trả về null
-        return json != null ? redisObjectMapper.readValue(json, new TypeReference<List<ProductResponse>>() {}) : null;
+    // Nhận message xóa cache từ các node khác (và từ chính node này)
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        evictLocalCache(new String(message.getBody(), StandardCharsets.UTF_8));
     }
 
-    // Hàm này tính count các sản phẩm từ cache Redis
+    private void evictLocalCache(String invalidation) {
+        localCacheEpoch.incrementAndGet();
+        if (INVALIDATE_ALL_MESSAGE.equals(invalidation)) {
+            productLocalCache.invalidateAll();
+            return;
+        }
+        long category;
+        try {
+            category = Long.parseLong(invalidation);
+        } catch (NumberFormatException e) {
+            logger.warn("Unknown product cache invalidation message: {}", invalidation);
+            productLocalCache.invalidateAll();
+            return;
+        }
+        // Khóa L1 bắt đầu bằng "c{categoryId}:" (xem getQueryKeyFrom)
+        String categoryPrefix = "c" + category + ":";
+        String allCategoriesPrefix = "c0:";
+        productLocalCache.asMap().keySet().removeIf(key ->
+                key.startsWith(categoryPrefix) || key.startsWith(allCategoriesPrefix));
+    }
+
+    // Hàm này lấy trang sản phẩm đã serialize sẵn: L1 (JVM) trước, sau đó đến Redis,
+    // cuối cùng mới gọi loader (truy vấn DB). Mỗi khóa chỉ có 1 loader chạy tại 1 thời điểm
     @Override
-    public Long countAllProducts(String keyword, Long categoryId, PageRequest pageRequest) throws JsonProcessingException {
+    public CachedProductList getProductList(String keyword,
+                                            Long categoryId,
+                                            PageRequest pageRequest,
+                                            Supplier<ProductListResponse> loader) throws JsonProcessingException {
+        String queryKey = this.getQueryKeyFrom(keyword, categoryId, pageRequest);
+        CachedProductList cached = productLocalCache.getIfPresent(queryKey);
+        if (cached != null) {
+            refreshIfStale(cached, queryKey, keyword, categoryId, pageRequest, loader);
+            return cached;
+        }
+        long epoch = localCacheEpoch.get();
         String key = this.getKeyFrom(keyword, categoryId, pageRequest);
+
+        // Gộp request trong cùng node: request đến sau chờ kết quả của request đang tải khóa này
+        CompletableFuture<CachedProductList> loading = new CompletableFuture<>();
+        CompletableFuture<CachedProductList> inFlight = inFlightLoads.putIfAbsent(key, loading);
+        if (inFlight != null) {
+            return awaitInFlight(inFlight);
+        }
+        try {
+            CachedProductList productList = loadFromRedisOrDatabase(key, loader);
+            if (localCacheEpoch.get() == epoch) {
+                productLocalCache.put(queryKey, productList);
+            }
+            loading.complete(productList);
+            refreshIfStale(productList, queryKey, keyword, categoryId, pageRequest, loader);
+            return productList;
+        } catch (JsonProcessingException | RuntimeException e) {
+            loading.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlightLoads.remove(key, loading);
+        }
+    }
+
+    private static CachedProductList awaitInFlight(CompletableFuture<CachedProductList> inFlight)
+            throws JsonProcessingException {
+        try {
+            return inFlight.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof JsonProcessingException jsonProcessingException) {
+                throw jsonProcessingException;
+            }
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw e;
+        }
+    }
+
+    private CachedProductList loadFromRedisOrDatabase(String key,
+                                                      Supplier<ProductListResponse> loader)
+            throws JsonProcessingException {
         String json = redisTemplate.opsForValue().get(key);
-        List<ProductResponse> productResponses = json != null ? redisObjectMapper.readValue(json, new TypeReference<List<ProductResponse>>() {}) : null;
-        return productResponses != null ? (long) productResponses.size() : 0L;
+        if (json != null) {
+            // Không deserialize: json trong Redis đã là body cuối cùng của response.
+            // Bản đã quá soft TTL vẫn được trả ngay (refreshIfStale sẽ tải lại ở background)
+            return toCachedProductList(json);
+        }
+        // Giữa các node: chỉ node giữ lock được truy vấn DB và ghi cache. Node không lấy được lock
+        // đọc lại Redis trong thời gian ngắn (lockWait) để lấy trang node kia vừa ghi; hết thời gian
+        // (node kia chậm hoặc đã chết) mới tự truy vấn DB, không ghi Redis.
+        // Trong 1 node, single-flight ở trên đã gộp các request cùng khóa
+        String lockKey = key + LOCK_KEY_SUFFIX;
+        String lockToken = UUID.randomUUID().toString();
+        Boolean locked = redisTemplate.opsForValue().setIfAbsent(lockKey, lockToken, LOCK_TTL);
+        if (!Boolean.TRUE.equals(locked)) {
+            CachedProductList written = waitForLockHolder(key);
+            if (written != null) {
+                return written;
+            }
+            return serializeProductList(loader.get());
+        }
+        try {
+            return saveProductListToCache(key, loader.get());
+        } finally {
+            redisTemplate.execute(RELEASE_LOCK_SCRIPT, List.of(lockKey), lockToken);
+        }
     }
 
+    // Đọc lại Redis mỗi LOCK_POLL_INTERVAL cho đến khi có trang, tối đa lockWait. Hết thời gian trả về null
+    private CachedProductList waitForLockHolder(String key) {
+        long deadline = System.nanoTime() + lockWait.toNanos();
+        while (true) {
+            long remainingMillis = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            if (remainingMillis <= 0) {
+                return null;
+            }
+            try {
+                Thread.sleep(Math.min(LOCK_POLL_INTERVAL.toMillis(), remainingMillis));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+            String json = redisTemplate.opsForValue().get(key);
+            if (json != null) {
+                return toCachedProductList(json);
+            }
+        }
+    }
 
-    // Hàm này lưu tất cả sản phẩm vào cache Redis
-    @Override
-    public void saveAllProductsToCache(List<ProductResponse> productResponses, String keyword, Long categoryId, PageRequest pageRequest) throws JsonProcessingException {
+    // Trang đã quá soft TTL: tải lại ở background, mỗi khóa chỉ 1 lần refresh trong node,
+    // và giữa các node chỉ node giữ được lock mới refresh
+    private void refreshIfStale(CachedProductList productList,
+                                String queryKey,
+                                String keyword,
+                                Long categoryId,
+                                PageRequest pageRequest,
+                                Supplier<ProductListResponse> loader) {
+        if (!productList.isStale() || !refreshingKeys.add(queryKey)) {
+            return;
+        }
+        try {
+            productCacheRefreshExecutor.execute(() -> {
+                try {
+                    refresh(queryKey, keyword, categoryId, pageRequest, loader);
+                } catch (Exception e) {
+                    logger.warn("Cannot refresh product cache {}: {}", queryKey, e.getMessage());
+                } finally {
+                    refreshingKeys.remove(queryKey);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Hàng đợi đầy => bỏ qua, request sau sẽ thử lại
+            refreshingKeys.remove(queryKey);
+        }
+    }
+
+    private void refresh(String queryKey,
+                         String keyword,
+                         Long categoryId,
+                         PageRequest pageRequest,
+                         Supplier<ProductListResponse> loader) throws JsonProcessingException {
+        long epoch = localCacheEpoch.get();
         String key = this.getKeyFrom(keyword, categoryId, pageRequest);
-        String json = redisObjectMapper.writeValueAsString(productResponses);
-        redisTemplate.opsForValue().set(key, json);
+        String lockKey = key + LOCK_KEY_SUFFIX;
+        String lockToken = UUID.randomUUID().toString();
+        if (!Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(lockKey, lockToken, LOCK_TTL))) {
+            return;
+        }
+        try {
+            CachedProductList productList = saveProductListToCache(key, loader.get());
+            if (localCacheEpoch.get() == epoch) {
+                productLocalCache.put(queryKey, productList);
+            }
+        } finally {
+            redisTemplate.execute(RELEASE_LOCK_SCRIPT, List.of(lockKey), lockToken);
+        }
+    }
+
+    private static CachedProductList toCachedProductList(String value) {
+        int separator = value.indexOf(VALUE_SEPARATOR);
+        if (separator > 0) {
+            try {
+                long softExpiresAt = Long.parseLong(value.substring(0, separator));
+                return new CachedProductList(
+                        value.substring(separator + 1).getBytes(StandardCharsets.UTF_8), softExpiresAt);
+            } catch (NumberFormatException ignored) {
+                // giá trị cũ không có thời hạn, xử lý bên dưới
+            }
+        }
+        // Giá trị không có soft TTL => coi như đã cũ để được làm mới
+        return new CachedProductList(value.getBytes(StandardCharsets.UTF_8), 0L);
+    }
+
+    // Hàm này serialize ProductListResponse một lần và lưu vào cache Redis kèm hard TTL
+    private CachedProductList saveProductListToCache(String key,
+                                                     ProductListResponse productListResponse)
+            throws JsonProcessingException {
+        CachedProductList productList = serializeProductList(productListResponse);
+        redisTemplate.opsForValue().set(key,
+                productList.getSoftExpiresAt() + String.valueOf(VALUE_SEPARATOR)
+                        + new String(productList.getBody(), StandardCharsets.UTF_8),
+                hardTtl);
+        return productList;
+    }
+
+    private CachedProductList serializeProductList(ProductListResponse productListResponse)
+            throws JsonProcessingException {
+        byte[] body = redisObjectMapper.writeValueAsBytes(productListResponse);
+        return new CachedProductList(body, System.currentTimeMillis() + softTtl.toMillis());
     }
 }
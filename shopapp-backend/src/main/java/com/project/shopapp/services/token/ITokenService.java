@@ -6,4 +6,8 @@ import com.project.shopapp.models.User;
 public interface ITokenService {
     Token addToken(User user, String token, boolean isMobileDevice);
     Token refreshToken(String refreshToken, User user) throws Exception;
+    void revokeToken(String token) throws Exception;
+    // token còn trong kho và chưa bị thu hồi
+    boolean isTokenActive(String token);
+    Token findByRefreshToken(String refreshToken);
 }
@@ -0,0 +1,247 @@
+package com.project.shopapp.services.token;
+
+import com.project.shopapp.components.JwtTokenUtils;
+import com.project.shopapp.exceptions.DataNotFoundException;
+import com.project.shopapp.models.Token;
+import com.project.shopapp.models.User;
+import com.project.shopapp.services.auth.IAuthCacheService;
+import com.project.shopapp.utils.HashUtils;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+@Service
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "token.store", havingValue = "redis")
+public class RedisTokenService implements ITokenService {
+    /**
+     * Lưu token trong Redis thay cho bảng tokens (token.store=redis):
+     * - tokens:access:{sha256(token)}          => hash chứa thông tin token, tự hết hạn cùng refresh token
+     * - tokens:refresh:{sha256(refreshToken)}  => sha256 của access token tương ứng
+     * - tokens:user:{userId}                   => sorted set các access token của user, để giới hạn MAX_TOKENS
+     * Thu hồi token chỉ là xóa khóa, không cần cập nhật hay quét bảng
+     */
+    private static final int MAX_TOKENS = 3;
+    private static final String ACCESS_KEY_PREFIX = "tokens:access:";
+    private static final String REFRESH_KEY_PREFIX = "tokens:refresh:";
+    private static final String USER_KEY_PREFIX = "tokens:user:";
+    // Token mobile có score lớn hơn để token không phải mobile bị xóa trước, cùng loại thì xóa token cũ trước
+    private static final double MOBILE_SCORE_OFFSET = 1e13;
+
+    private static final String FIELD_TOKEN = "token";
+    private static final String FIELD_REFRESH_TOKEN = "refresh_token";
+    private static final String FIELD_TOKEN_TYPE = "token_type";
+    private static final String FIELD_EXPIRATION_DATE = "expiration_date";
+    private static final String FIELD_REFRESH_EXPIRATION_DATE = "refresh_expiration_date";
+    private static final String FIELD_IS_MOBILE = "is_mobile";
+    private static final String FIELD_USER_ID = "user_id";
+
+    @Value("${jwt.expiration}")
+    private int expiration; //save to an environment variable
+
+    @Value("${jwt.expiration-refresh-token}")
+    private int expirationRefreshToken;
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final JwtTokenUtils jwtTokenUtil;
+    private final IAuthCacheService authCacheService;
+
+    @Override
+    public Token addToken(User user, String token, boolean isMobileDevice) {
+        String userKey = USER_KEY_PREFIX + user.getId();
+        // Bỏ các token đã hết hạn (khóa đã bị Redis xóa) khỏi danh sách của user
+        long tokenCount = removeExpiredTokenHashes(userKey);
+        // Kiểm tra nếu số lượng token vượt quá giới hạn cho phép
+        if (tokenCount >= MAX_TOKENS) {
+            Set<String> tokenHashesToDelete = redisTemplate.opsForZSet()
+                    .range(userKey, 0, tokenCount - MAX_TOKENS);
+            if (tokenHashesToDelete != null) {
+                for (String tokenHash : tokenHashesToDelete) {
+                    Token tokenToDelete = findByTokenHash(tokenHash);
+                    if (tokenToDelete != null) {
+                        deleteToken(tokenToDelete, user.getId());
+                        authCacheService.invalidateToken(tokenToDelete.getToken());
+                    }
+                }
+            }
+        }
+        Token newToken = Token.builder()
+                .user(user)
+                .token(token)
+                .revoked(false)
+                .expired(false)
+                .tokenType("Bearer")
+                .expirationDate(LocalDateTime.now().plusSeconds(expiration))
+                .refreshToken(UUID.randomUUID().toString())
+                .refreshExpirationDate(LocalDateTime.now().plusSeconds(expirationRefreshToken))
+                .isMobile(isMobileDevice)
+                .build();
+        saveToken(newToken, user.getId());
+        return newToken;
+    }
+
+    @Override
+    public Token refreshToken(String refreshToken, User user) throws Exception {
+        // Refresh token hết hạn thì khóa đã bị Redis xóa
+        Token existingToken = findByRefreshToken(refreshToken);
+        if (existingToken == null) {
+            throw new DataNotFoundException("Refresh token does not exist");
+        }
+        String newToken = jwtTokenUtil.generateToken(user);
+        deleteToken(existingToken, user.getId());
+        authCacheService.invalidateToken(existingToken.getToken());
+
+        Token refreshedToken = Token.builder()
+                .user(user)
+                .token(newToken)
+                .revoked(false)
+                .expired(false)
+                .tokenType(existingToken.getTokenType())
+                .expirationDate(LocalDateTime.now().plusSeconds(expiration))
+                .refreshToken(UUID.randomUUID().toString())
+                .refreshExpirationDate(LocalDateTime.now().plusSeconds(expirationRefreshToken))
+                .isMobile(existingToken.isMobile())
+                .build();
+        saveToken(refreshedToken, user.getId());
+        return refreshedToken;
+    }
+
+    @Override
+    public void revokeToken(String token) throws Exception {
+        String tokenHash = HashUtils.sha256Hex(token);
+        Token existingToken = findByTokenHash(tokenHash);
+        if (existingToken == null) {
+            throw new DataNotFoundException("Token does not exist");
+        }
+        String userId = (String) redisTemplate.opsForHash().get(ACCESS_KEY_PREFIX + tokenHash, FIELD_USER_ID);
+        deleteToken(existingToken, userId == null ? null : Long.valueOf(userId));
+        authCacheService.invalidateToken(token);
+    }
+
+    @Override
+    public boolean isTokenActive(String token) {
+        return Boolean.TRUE.equals(redisTemplate.hasKey(ACCESS_KEY_PREFIX + HashUtils.sha256Hex(token)));
+    }
+
+    @Override
+    public Token findByRefreshToken(String refreshToken) {
+        String tokenHash = redisTemplate.opsForValue()
+                .get(REFRESH_KEY_PREFIX + HashUtils.sha256Hex(refreshToken));
+        return tokenHash == null ? null : findByTokenHash(tokenHash);
+    }
+
+    private Token findByTokenHash(String tokenHash) {
+        Map<Object, Object> fields = redisTemplate.opsForHash().entries(ACCESS_KEY_PREFIX + tokenHash);
+        if (fields.isEmpty()) {
+            return null;
+        }
+        return Token.builder()
+                .token((String) fields.get(FIELD_TOKEN))
+                .refreshToken((String) fields.get(FIELD_REFRESH_TOKEN))
+                .tokenType((String) fields.get(FIELD_TOKEN_TYPE))
+                .expirationDate(LocalDateTime.parse((String) fields.get(FIELD_EXPIRATION_DATE)))
+                .refreshExpirationDate(LocalDateTime.parse((String) fields.get(FIELD_REFRESH_EXPIRATION_DATE)))
+                .isMobile(Boolean.parseBoolean((String) fields.get(FIELD_IS_MOBILE)))
+                .revoked(false)
+                .expired(false)
+                .build();
+    }
+
+    // Trả về số token còn lại của user. Số lượt gọi Redis không phụ thuộc số token:
+    // một ZRANGE, một pipeline các lệnh EXISTS và tối đa một ZREM
+    private long removeExpiredTokenHashes(String userKey) {
+        Set<String> userTokenHashes = redisTemplate.opsForZSet().range(userKey, 0, -1);
+        if (userTokenHashes == null || userTokenHashes.isEmpty()) {
+            return 0;
+        }
+        List<String> tokenHashes = new ArrayList<>(userTokenHashes);
+        List<Object> exists = redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) throws DataAccessException {
+                RedisOperations<String, String> stringOperations = (RedisOperations<String, String>) operations;
+                for (String tokenHash : tokenHashes) {
+                    stringOperations.hasKey(ACCESS_KEY_PREFIX + tokenHash);
+                }
+                return null;
+            }
+        });
+        List<String> expiredTokenHashes = new ArrayList<>();
+        for (int i = 0; i < tokenHashes.size(); i++) {
+            if (!Boolean.TRUE.equals(exists.get(i))) {
+                expiredTokenHashes.add(tokenHashes.get(i));
+            }
+        }
+        if (!expiredTokenHashes.isEmpty()) {
+            redisTemplate.opsForZSet().remove(userKey, expiredTokenHashes.toArray());
+        }
+        return tokenHashes.size() - expiredTokenHashes.size();
+    }
+
+    private void saveToken(Token token, Long userId) {
+        String tokenHash = HashUtils.sha256Hex(token.getToken());
+        String accessKey = ACCESS_KEY_PREFIX + tokenHash;
+        String refreshKey = REFRESH_KEY_PREFIX + HashUtils.sha256Hex(token.getRefreshToken());
+        String userKey = USER_KEY_PREFIX + userId;
+        // Khóa sống bằng thời gian sống dài nhất của access token và refresh token
+        Duration ttl = Duration.ofSeconds(Math.max(expiration, expirationRefreshToken));
+        double score = (token.isMobile() ? MOBILE_SCORE_OFFSET : 0) + System.currentTimeMillis();
+
+        Map<String, String> fields = new HashMap<>();
+        fields.put(FIELD_TOKEN, token.getToken());
+        fields.put(FIELD_REFRESH_TOKEN, token.getRefreshToken());
+        fields.put(FIELD_TOKEN_TYPE, token.getTokenType());
+        fields.put(FIELD_EXPIRATION_DATE, token.getExpirationDate().toString());
+        fields.put(FIELD_REFRESH_EXPIRATION_DATE, token.getRefreshExpirationDate().toString());
+        fields.put(FIELD_IS_MOBILE, String.valueOf(token.isMobile()));
+        fields.put(FIELD_USER_ID, String.valueOf(userId));
+
+        executeInTransaction(operations -> {
+            operations.opsForHash().putAll(accessKey, fields);
+            operations.expire(accessKey, ttl);
+            operations.opsForValue().set(refreshKey, tokenHash, Duration.ofSeconds(expirationRefreshToken));
+            operations.opsForZSet().add(userKey, tokenHash, score);
+            operations.expire(userKey, ttl);
+        });
+    }
+
+    private void deleteToken(Token token, Long userId) {
+        String tokenHash = HashUtils.sha256Hex(token.getToken());
+        String refreshKey = REFRESH_KEY_PREFIX + HashUtils.sha256Hex(token.getRefreshToken());
+        executeInTransaction(operations -> {
+            operations.delete(List.of(ACCESS_KEY_PREFIX + tokenHash, refreshKey));
+            if (userId != null) {
+                operations.opsForZSet().remove(USER_KEY_PREFIX + userId, tokenHash);
+            }
+        });
+    }
+
+    // Chạy các lệnh ghi trong MULTI/EXEC để các khóa của một token luôn nhất quán
+    private void executeInTransaction(Consumer<RedisOperations<String, String>> commands) {
+        redisTemplate.execute(new SessionCallback<List<Object>>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> List<Object> execute(RedisOperations<K, V> operations) throws DataAccessException {
+                RedisOperations<String, String> stringOperations = (RedisOperations<String, String>) operations;
+                stringOperations.multi();
+                commands.accept(stringOperations);
+                return stringOperations.exec();
+            }
+        });
+    }
+}
@@ -0,0 +1,77 @@
+package com.project.shopapp.services.token;
+
+import com.project.shopapp.repositories.TokenRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Supplier;
+
+@Service
+@ConditionalOnProperty(name = "token.store", havingValue = "mysql", matchIfMissing = true)
+public class TokenPurgeService {
+    /**
+     * Định kỳ xóa token đã thu hồi hoặc đã hết hạn (cả refresh token).
+     * Xóa theo từng lô nhỏ theo khóa chính, mỗi lô một transaction ngắn, để không khóa bảng tokens lâu
+     */
+    private static final Logger logger = LoggerFactory.getLogger(TokenPurgeService.class);
+    private final TokenRepository tokenRepository;
+    private final Counter purgedTokensCounter;
+    private final Timer purgeTimer;
+
+    @Value("${token.purge.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${token.purge.max-batches:100}")
+    private int maxBatches;
+
+    public TokenPurgeService(TokenRepository tokenRepository, MeterRegistry meterRegistry) {
+        this.tokenRepository = tokenRepository;
+        this.purgedTokensCounter = Counter.builder("shopapp.tokens.purged")
+                .description("Expired or revoked tokens removed by the purge job")
+                .register(meterRegistry);
+        this.purgeTimer = Timer.builder("shopapp.tokens.purge")
+                .description("Duration of a token purge run")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(initialDelayString = "${token.purge.initial-delay:PT5M}",
+            fixedDelayString = "${token.purge.fixed-delay:PT1H}")
+    public void purgeExpiredTokens() {
+        int purged = purgeTimer.record(this::purgeInBatches);
+        purgedTokensCounter.increment(purged);
+        logger.info("Token purge removed {} rows", purged);
+    }
+
+    private int purgeInBatches() {
+        LocalDateTime now = LocalDateTime.now();
+        // Hai truy vấn riêng, mỗi truy vấn dùng được 1 index, thay cho "revoked OR expired" quét cả bảng
+        int purged = purgeBatches(() -> tokenRepository.findRevokedTokenIds(batchSize));
+        purged += purgeBatches(() -> tokenRepository.findExpiredTokenIds(now, batchSize));
+        return purged;
+    }
+
+    private int purgeBatches(Supplier<List<Long>> purgeableTokenIds) {
+        int purged = 0;
+        // Giới hạn số lô mỗi lần chạy, phần còn lại được xóa ở lần chạy sau
+        for (int batch = 0; batch < maxBatches; batch++) {
+            List<Long> ids = purgeableTokenIds.get();
+            if (ids.isEmpty()) {
+                break;
+            }
+            purged += tokenRepository.deleteByIds(ids);
+            if (ids.size() < batchSize) {
+                break;
+            }
+        }
+        return purged;
+    }
+}
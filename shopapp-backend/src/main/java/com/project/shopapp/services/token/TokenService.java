@@ -6,8 +6,11 @@ import com.project.shopapp.exceptions.ExpiredTokenException;
 import com.project.shopapp.models.Token;
 import com.project.shopapp.models.User;
 import com.project.shopapp.repositories.TokenRepository;
+import com.project.shopapp.services.auth.IAuthCacheService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -17,6 +20,8 @@ import java.util.UUID;
 
 @Service
 @RequiredArgsConstructor
+//Lưu token trong bảng tokens (MySQL), mặc định; token.store=redis để dùng RedisTokenService
+@ConditionalOnProperty(name = "token.store", havingValue = "mysql", matchIfMissing = true)
 public class TokenService implements ITokenService{
     private static final int MAX_TOKENS = 3;
     @Value("${jwt.expiration}")
@@ -27,22 +32,22 @@ public class TokenService implements ITokenService{
 
     private final TokenRepository tokenRepository;
     private final JwtTokenUtils jwtTokenUtil;
+    private final IAuthCacheService authCacheService;
 
     @Transactional
     @Override
     public Token addToken(User user, String token, boolean isMobileDevice) {
-        List<Token> userTokens = tokenRepository.findByUser(user);
-        int tokenCount = userTokens.size();
+        long tokenCount = tokenRepository.countByUser(user);
         // Kiểm tra nếu số lượng token vượt quá giới hạn cho phép
         if (tokenCount >= MAX_TOKENS) {
-            // Tìm xem có token nào không phải từ thiết bị di động (non-mobile)
-            Token tokenToDelete = userTokens.stream()
-                    .filter(t -> !t.isMobile()) // Lọc các token không phải là mobile
-                    .findFirst()               // Lấy token đầu tiên trong danh sách (nếu có)
-                    .orElse(userTokens.get(0)); // Nếu không có, xóa token đầu tiên (FIFO)
-
-            // Xóa token được chọn khỏi cơ sở dữ liệu
-            tokenRepository.delete(tokenToDelete);
+            // Xóa token không phải mobile trước, nếu không có thì xóa token cũ nhất (FIFO),
+            // đủ để còn chỗ cho token mới
+            int excess = (int) (tokenCount - MAX_TOKENS + 1);
+            List<Token> tokensToDelete = tokenRepository.findTokensToEvict(user, PageRequest.of(0, excess));
+
+            // Xóa các token được chọn khỏi cơ sở dữ liệu
+            tokenRepository.deleteAll(tokensToDelete);
+            tokensToDelete.forEach(t -> authCacheService.invalidateToken(t.getToken()));
         }
         // Tính thời gian hết hạn cho token mới
         LocalDateTime expirationDateTime = LocalDateTime.now().plusSeconds(expiration);
@@ -77,12 +82,16 @@ public class TokenService implements ITokenService{
         if (existingToken.getRefreshExpirationDate().isBefore(LocalDateTime.now())) {
             // Xóa token hết hạn khỏi cơ sở dữ liệu
             tokenRepository.delete(existingToken);
+            authCacheService.invalidateToken(existingToken.getToken());
             throw new ExpiredTokenException("Refresh token is expired");
         }
 
         // Tạo token mới cho người dùng
         String newToken = jwtTokenUtil.generateToken(user);
 
+        // Token cũ không còn dùng được sau khi refresh
+        authCacheService.invalidateToken(existingToken.getToken());
+
         // Cập nhật thời gian hết hạn của token và refresh token
         existingToken.setExpirationDate(LocalDateTime.now().plusSeconds(expiration)); // Hạn token mới
         existingToken.setToken(newToken);                                             // Gán token mới
@@ -92,4 +101,27 @@ public class TokenService implements ITokenService{
         // Lưu token đã cập nhật vào cơ sở dữ liệu
         return tokenRepository.save(existingToken);
     }
+
+    @Transactional
+    @Override
+    public void revokeToken(String token) throws Exception {
+        Token existingToken = tokenRepository.findByToken(token);
+        if(existingToken == null) {
+            throw new DataNotFoundException("Token does not exist");
+        }
+        existingToken.setRevoked(true);
+        tokenRepository.save(existingToken);
+        authCacheService.invalidateToken(token);
+    }
+
+    @Override
+    public boolean isTokenActive(String token) {
+        Token existingToken = tokenRepository.findByToken(token);
+        return existingToken != null && !existingToken.isRevoked();
+    }
+
+    @Override
+    public Token findByRefreshToken(String refreshToken) {
+        return tokenRepository.findByRefreshToken(refreshToken);
+    }
 }
@@ -0,0 +1,60 @@
+package com.project.shopapp.utils;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+public class FullTextUtils {
+    // innodb_ft_min_token_size mặc định của MySQL
+    private static final int FULLTEXT_MIN_TOKEN_SIZE = 3;
+    // INFORMATION_SCHEMA.INNODB_FT_DEFAULT_STOPWORD: "+the*" trong BOOLEAN MODE làm cả truy vấn rỗng
+    private static final Set<String> INNODB_DEFAULT_STOPWORDS = Set.of(
+            "a", "about", "an", "are", "as", "at", "be", "by", "com", "de", "en", "for", "from",
+            "how", "i", "in", "is", "it", "la", "of", "on", "or", "that", "the", "this", "to",
+            "was", "what", "when", "where", "who", "will", "with", "und", "www");
+
+    // Chuyển keyword thành chuỗi BOOLEAN MODE: mỗi từ là bắt buộc và khớp theo tiền tố,
+    // vd: "iphone pro" => "+iphone* +pro*". Trả về null nếu không dùng được FULLTEXT
+    // (keyword rỗng hoặc mọi từ đều ngắn hơn innodb_ft_min_token_size/là stopword) => dùng LIKE như cũ
+    public static String toBooleanModeQuery(String keyword) {
+        String query = splitTerms(keyword).stream()
+                .filter(FullTextUtils::isIndexed)
+                .map(term -> "+" + term + "*")
+                .collect(Collectors.joining(" "));
+        return query.isEmpty() ? null : query;
+    }
+
+    // Các từ FULLTEXT không tìm được (ngắn hoặc là stopword) không bị bỏ qua mà thành 1 mẫu LIKE
+    // lọc thêm trên kết quả MATCH, giữ thứ tự trong keyword, vd: "iphone 15 pro" => "%15%".
+    // Trả về null nếu mọi từ đều nằm trong FULLTEXT query
+    public static String toLikePattern(String keyword) {
+        List<String> terms = splitTerms(keyword).stream()
+                .filter(term -> !isIndexed(term))
+                .map(FullTextUtils::escapeLike)
+                .toList();
+        return terms.isEmpty() ? null : "%" + String.join("%", terms) + "%";
+    }
+
+    private static List<String> splitTerms(String keyword) {
+        if (keyword == null || keyword.isBlank()) {
+            return List.of();
+        }
+        // Ký tự toán tử của BOOLEAN MODE (và '.', cũng là dấu tách từ của FULLTEXT parser) được thay bằng
+        // dấu cách rồi mới tách từ, để "john@exa" thành "john" + "exa" thay vì 1 từ dính liền "johnexa"
+        return Arrays.stream(keyword.replaceAll("[+\\-<>()~*\"@.]", " ").trim().split("\\s+"))
+                .filter(term -> !term.isEmpty())
+                .toList();
+    }
+
+    private static boolean isIndexed(String term) {
+        return term.length() >= FULLTEXT_MIN_TOKEN_SIZE
+                && !INNODB_DEFAULT_STOPWORDS.contains(term.toLowerCase(Locale.ROOT));
+    }
+
+    // Ký tự đặc biệt của LIKE trong từ khóa được so khớp như ký tự thường
+    public static String escapeLike(String term) {
+        return term.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
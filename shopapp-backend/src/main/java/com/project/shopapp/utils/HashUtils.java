@@ -0,0 +1,22 @@
+package com.project.shopapp.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+public class HashUtils {
+    // SHA-256 dạng hex chữ thường, giống SHA2(value, 256) của MySQL
+    public static String sha256Hex(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            // SHA-256 luôn có sẵn trong JDK
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -6,6 +6,7 @@ public class MessageKeys {
     public static final String LOGIN_FAILED =  "user.login.login_failed";
     public static final String PASSWORD_NOT_MATCH =  "user.register.password_not_match";
     public static final String USER_IS_LOCKED = "user.login.user_is_locked";
+    public static final String TOO_MANY_LOGIN_REQUESTS = "user.login.too_many_requests";
 
     public static final String INSERT_CATEGORY_SUCCESSFULLY = "category.create_category.create_successfully";
     public static final String DELETE_CATEGORY_SUCCESSFULLY = "category.delete_category.delete_successfully";
@@ -19,6 +20,7 @@ public class MessageKeys {
     public static final String WRONG_PHONE_PASSWORD = "user.login.wrong_phone_password";
     public static final String ROLE_DOES_NOT_EXISTS = "user.login.role_not_exist";
     public static final String REFRESH_TOKEN_SUCCESSFULLY = "user.login.refresh_token_successfully";
+    public static final String LOGOUT_SUCCESSFULLY = "user.logout.logout_successfully";
 //    public static final String REFRESH_TOKEN_FAILED = "user.login.refresh_token_failed";
 
 
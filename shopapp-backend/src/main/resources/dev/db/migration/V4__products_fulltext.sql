@@ -0,0 +1,14 @@
+-- FULLTEXT index để tìm kiếm sản phẩm bằng MATCH ... AGAINST thay cho LIKE '%keyword%'
+SELECT COUNT(*)
+INTO @indexCount
+FROM INFORMATION_SCHEMA.STATISTICS
+WHERE TABLE_NAME = 'products'
+  AND TABLE_SCHEMA = DATABASE()
+  AND INDEX_NAME = 'idx_products_name_description';
+
+SET @alterStatement = IF(@indexCount = 0,
+    'ALTER TABLE products ADD FULLTEXT INDEX idx_products_name_description (name, description);',
+    'SELECT 1;');
+PREPARE stmt FROM @alterStatement;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
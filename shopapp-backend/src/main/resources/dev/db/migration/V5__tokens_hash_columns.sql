@@ -0,0 +1,48 @@
+-- Cột hash SHA-256 (CHAR(64)) có index để tra cứu token/refresh token, thay cho quét VARCHAR(255)
+SELECT COUNT(*)
+INTO @columnCount
+FROM INFORMATION_SCHEMA.COLUMNS
+WHERE TABLE_NAME = 'tokens'
+  AND TABLE_SCHEMA = DATABASE()
+  AND COLUMN_NAME = 'token_hash';
+
+SET @alterStatement = IF(@columnCount = 0,
+    'ALTER TABLE tokens ADD COLUMN token_hash CHAR(64) NULL, ADD COLUMN refresh_token_hash CHAR(64) NULL;',
+    'SELECT 1;');
+PREPARE stmt FROM @alterStatement;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+-- Tính hash cho các token đã có
+UPDATE tokens
+SET token_hash = SHA2(token, 256),
+    refresh_token_hash = IF(refresh_token IS NULL OR refresh_token = '', NULL, SHA2(refresh_token, 256))
+WHERE token_hash IS NULL;
+
+SELECT COUNT(*)
+INTO @indexCount
+FROM INFORMATION_SCHEMA.STATISTICS
+WHERE TABLE_NAME = 'tokens'
+  AND TABLE_SCHEMA = DATABASE()
+  AND INDEX_NAME = 'idx_tokens_token_hash';
+
+SET @alterStatement = IF(@indexCount = 0,
+    'ALTER TABLE tokens ADD INDEX idx_tokens_token_hash (token_hash);',
+    'SELECT 1;');
+PREPARE stmt FROM @alterStatement;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+SELECT COUNT(*)
+INTO @indexCount
+FROM INFORMATION_SCHEMA.STATISTICS
+WHERE TABLE_NAME = 'tokens'
+  AND TABLE_SCHEMA = DATABASE()
+  AND INDEX_NAME = 'idx_tokens_refresh_token_hash';
+
+SET @alterStatement = IF(@indexCount = 0,
+    'ALTER TABLE tokens ADD INDEX idx_tokens_refresh_token_hash (refresh_token_hash);',
+    'SELECT 1;');
+PREPARE stmt FROM @alterStatement;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
@@ -0,0 +1,14 @@
+-- Các kích thước ảnh thu nhỏ đã tạo cho ảnh sản phẩm, vd: '64,256,1024'
+SELECT COUNT(*)
+INTO @columnCount
+FROM INFORMATION_SCHEMA.COLUMNS
+WHERE TABLE_NAME = 'product_images'
+  AND TABLE_SCHEMA = DATABASE()
+  AND COLUMN_NAME = 'variant_sizes';
+
+SET @alterStatement = IF(@columnCount = 0,
+    'ALTER TABLE product_images ADD COLUMN variant_sizes VARCHAR(50) NULL;',
+    'SELECT 1;');
+PREPARE stmt FROM @alterStatement;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
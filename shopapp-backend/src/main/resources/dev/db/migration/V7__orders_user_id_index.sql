@@ -0,0 +1,14 @@
+-- Index (user_id, id) cho lịch sử đơn hàng của user: lọc theo user, đi ngược theo id, không filesort
+SELECT COUNT(*)
+INTO @indexCount
+FROM INFORMATION_SCHEMA.STATISTICS
+WHERE TABLE_NAME = 'orders'
+  AND TABLE_SCHEMA = DATABASE()
+  AND INDEX_NAME = 'idx_orders_user_id_id';
+
+SET @alterStatement = IF(@indexCount = 0,
+    'ALTER TABLE orders ADD INDEX idx_orders_user_id_id (user_id, id);',
+    'SELECT 1;');
+PREPARE stmt FROM @alterStatement;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
@@ -0,0 +1,43 @@
+-- FULLTEXT index để tìm đơn hàng bằng MATCH ... AGAINST thay cho LIKE '%keyword%' trên 4 cột
+SELECT COUNT(*)
+INTO @indexCount
+FROM INFORMATION_SCHEMA.STATISTICS
+WHERE TABLE_NAME = 'orders'
+  AND TABLE_SCHEMA = DATABASE()
+  AND INDEX_NAME = 'idx_orders_fulltext';
+
+SET @alterStatement = IF(@indexCount = 0,
+    'ALTER TABLE orders ADD FULLTEXT INDEX idx_orders_fulltext (fullname, address, note, email);',
+    'SELECT 1;');
+PREPARE stmt FROM @alterStatement;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+-- Index thường cho tìm kiếm chính xác theo số điện thoại và email
+SELECT COUNT(*)
+INTO @indexCount
+FROM INFORMATION_SCHEMA.STATISTICS
+WHERE TABLE_NAME = 'orders'
+  AND TABLE_SCHEMA = DATABASE()
+  AND INDEX_NAME = 'idx_orders_phone_number';
+
+SET @alterStatement = IF(@indexCount = 0,
+    'ALTER TABLE orders ADD INDEX idx_orders_phone_number (phone_number);',
+    'SELECT 1;');
+PREPARE stmt FROM @alterStatement;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+SELECT COUNT(*)
+INTO @indexCount
+FROM INFORMATION_SCHEMA.STATISTICS
+WHERE TABLE_NAME = 'orders'
+  AND TABLE_SCHEMA = DATABASE()
+  AND INDEX_NAME = 'idx_orders_email';
+
+SET @alterStatement = IF(@indexCount = 0,
+    'ALTER TABLE orders ADD INDEX idx_orders_email (email);',
+    'SELECT 1;');
+PREPARE stmt FROM @alterStatement;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
@@ -0,0 +1,29 @@
+-- Index cho job xóa token (TokenPurgeService): token đã thu hồi và token đã hết hạn
+SELECT COUNT(*)
+INTO @indexCount
+FROM INFORMATION_SCHEMA.STATISTICS
+WHERE TABLE_NAME = 'tokens'
+  AND TABLE_SCHEMA = DATABASE()
+  AND INDEX_NAME = 'idx_tokens_revoked';
+
+SET @alterStatement = IF(@indexCount = 0,
+    'ALTER TABLE tokens ADD INDEX idx_tokens_revoked (revoked);',
+    'SELECT 1;');
+PREPARE stmt FROM @alterStatement;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+-- refresh_expiration_date nằm trong index để lọc token còn refresh token hợp lệ mà không đọc dòng
+SELECT COUNT(*)
+INTO @indexCount
+FROM INFORMATION_SCHEMA.STATISTICS
+WHERE TABLE_NAME = 'tokens'
+  AND TABLE_SCHEMA = DATABASE()
+  AND INDEX_NAME = 'idx_tokens_expiration';
+
+SET @alterStatement = IF(@indexCount = 0,
+    'ALTER TABLE tokens ADD INDEX idx_tokens_expiration (expiration_date, refresh_expiration_date);',
+    'SELECT 1;');
+PREPARE stmt FROM @alterStatement;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
@@ -0,0 +1,78 @@
+package com.project.shopapp.components;
+
+import com.project.shopapp.models.User;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.security.SignatureException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JwtTokenUtilsTest {
+    private static final String SECRET_KEY = "TaqlmGv1iEDMRiFp/pHuID1+T84IABfuA0xXh4GhiUI=";
+
+    private JwtTokenUtils jwtTokenUtils;
+
+    @BeforeEach
+    void setUp() {
+        jwtTokenUtils = new JwtTokenUtils();
+        ReflectionTestUtils.setField(jwtTokenUtils, "expiration", 3600);
+        ReflectionTestUtils.setField(jwtTokenUtils, "secretKey", SECRET_KEY);
+        jwtTokenUtils.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    private String tokenFor(String phoneNumber) throws Exception {
+        return jwtTokenUtils.generateToken(User.builder().id(1L).phoneNumber(phoneNumber).build());
+    }
+
+    @Test
+    void claimsAreVerifiedOncePerRequest() throws Exception {
+        String token = tokenFor("0912345678");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+
+        Claims first = jwtTokenUtils.extractAllClaims(token);
+
+        assertThat(jwtTokenUtils.extractAllClaims(token)).isSameAs(first);
+        assertThat(jwtTokenUtils.extractPhoneNumber(token)).isEqualTo("0912345678");
+        assertThat(jwtTokenUtils.isTokenExpired(token)).isFalse();
+    }
+
+    @Test
+    void anotherTokenInTheSameRequestIsVerifiedAgain() throws Exception {
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        jwtTokenUtils.extractAllClaims(tokenFor("0912345678"));
+
+        String tampered = tokenFor("0987654321");
+        tampered = tampered.substring(0, tampered.length() - 2)
+                + (tampered.endsWith("AA") ? "BB" : "AA");
+        String forged = tampered;
+
+        assertThatThrownBy(() -> jwtTokenUtils.extractAllClaims(forged)).isInstanceOf(SignatureException.class);
+    }
+
+    @Test
+    void claimsAreNotCachedOutsideARequest() throws Exception {
+        String token = tokenFor("0912345678");
+
+        assertThat(jwtTokenUtils.extractAllClaims(token)).isNotSameAs(jwtTokenUtils.extractAllClaims(token));
+    }
+
+    @Test
+    void tokenIsValidOnlyForItsOwnUser() throws Exception {
+        String token = tokenFor("0912345678");
+
+        assertThat(jwtTokenUtils.validateToken(token, User.builder().phoneNumber("0912345678").build())).isTrue();
+        assertThat(jwtTokenUtils.validateToken(token, User.builder().phoneNumber("0987654321").build())).isFalse();
+    }
+}
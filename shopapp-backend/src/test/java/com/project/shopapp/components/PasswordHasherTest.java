@@ -0,0 +1,82 @@
+package com.project.shopapp.components;
+
+import com.project.shopapp.exceptions.ServiceBusyException;
+import com.project.shopapp.utils.MessageKeys;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.authentication.BadCredentialsException;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PasswordHasherTest {
+    private ThreadPoolTaskExecutor executor;
+    private PasswordHasher passwordHasher;
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @BeforeEach
+    void setUp() {
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(0);
+        executor.initialize();
+        LocalizationUtils localizationUtils = mock(LocalizationUtils.class);
+        when(localizationUtils.getLocalizedMessage(MessageKeys.TOO_MANY_LOGIN_REQUESTS))
+                .thenReturn("Too many login requests");
+        passwordHasher = new PasswordHasher(executor, localizationUtils);
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        executor.shutdown();
+    }
+
+    private Object blockUntilReleased() throws InterruptedException {
+        return release.await(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void resultOfTheHashingTaskIsReturned() throws Exception {
+        assertThat(passwordHasher.execute(() -> "hash")).isEqualTo("hash");
+    }
+
+    @Test
+    void taskExceptionIsRethrownUnwrapped() {
+        assertThatThrownBy(() -> passwordHasher.execute(() -> {
+            throw new BadCredentialsException("Bad credentials");
+        })).isInstanceOf(BadCredentialsException.class);
+    }
+
+    @Test
+    void fullPoolRejectsImmediately() {
+        executor.submit(this::blockUntilReleased);
+
+        assertThatThrownBy(() -> passwordHasher.execute(() -> "hash"))
+                .isInstanceOf(ServiceBusyException.class)
+                .hasMessage("Too many login requests");
+    }
+
+    @Test
+    void acceptedTaskIsAwaitedUntilItFinishes() throws Exception {
+        AtomicBoolean finished = new AtomicBoolean();
+
+        String hash = passwordHasher.execute(() -> {
+            Thread.sleep(200);
+            finished.set(true);
+            return "hash";
+        });
+
+        assertThat(hash).isEqualTo("hash");
+        assertThat(finished).isTrue();
+    }
+}
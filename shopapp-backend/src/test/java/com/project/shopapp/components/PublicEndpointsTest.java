@@ -0,0 +1,50 @@
+package com.project.shopapp.components;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PublicEndpointsTest {
+    private PublicEndpoints publicEndpoints;
+
+    @BeforeEach
+    void setUp() {
+        publicEndpoints = new PublicEndpoints();
+        ReflectionTestUtils.setField(publicEndpoints, "apiPrefix", "/api/v1");
+        publicEndpoints.init();
+    }
+
+    private boolean matches(String method, String servletPath) {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, servletPath);
+        request.setServletPath(servletPath);
+        return publicEndpoints.matches(request);
+    }
+
+    @Test
+    void publicReadsAndAuthEndpointsBypassTheToken() {
+        assertThat(matches("GET", "/api/v1/products")).isTrue();
+        assertThat(matches("GET", "/api/v1/products/images/a.jpg")).isTrue();
+        assertThat(matches("get", "/api/v1/categories/3")).isTrue();
+        assertThat(matches("POST", "/api/v1/users/login")).isTrue();
+        assertThat(matches("GET", "/swagger-ui/index.html")).isTrue();
+    }
+
+    @Test
+    void sameMethodMustMatch() {
+        assertThat(matches("POST", "/api/v1/products")).isFalse();
+        assertThat(matches("DELETE", "/api/v1/categories/3")).isFalse();
+        assertThat(matches("GET", "/api/v1/users/login")).isFalse();
+    }
+
+    @Test
+    void patternsMatchWholeSegmentsOnly() {
+        assertThat(matches("GET", "/api/v1/orders/1")).isFalse();
+        assertThat(matches("GET", "/api/v1/productsx")).isFalse();
+        assertThat(matches("POST", "/api/v1/users/login/extra")).isFalse();
+        assertThat(matches("GET", "/api/v1/healthcheck/health")).isTrue();
+        assertThat(matches("GET", "/api/v1/healthcheck/other")).isFalse();
+    }
+}
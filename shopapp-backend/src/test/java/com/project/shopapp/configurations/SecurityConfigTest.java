@@ -0,0 +1,59 @@
+package com.project.shopapp.configurations;
+
+import com.project.shopapp.models.Role;
+import com.project.shopapp.models.User;
+import com.project.shopapp.repositories.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SecurityConfigTest {
+    private final UserRepository userRepository = mock(UserRepository.class);
+
+    private AuthenticationProvider providerWithStrength(int strength) {
+        SecurityConfig securityConfig = new SecurityConfig(userRepository);
+        ReflectionTestUtils.setField(securityConfig, "bcryptStrength", strength);
+        return securityConfig.authenticationProvider();
+    }
+
+    private User userWithPasswordHashedAt(int strength) {
+        User user = User.builder()
+                .phoneNumber("0912345678")
+                .password(new BCryptPasswordEncoder(strength).encode("secret"))
+                .role(new Role(2L, Role.USER))
+                .build();
+        when(userRepository.findByPhoneNumber("0912345678")).thenReturn(Optional.of(user));
+        when(userRepository.save(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        return user;
+    }
+
+    @Test
+    void passwordHashedWithAnOlderCostIsRehashedOnLogin() {
+        User user = userWithPasswordHashedAt(4);
+
+        providerWithStrength(5).authenticate(new UsernamePasswordAuthenticationToken("0912345678", "secret"));
+
+        verify(userRepository).save(user);
+        assertThat(user.getPassword()).startsWith("$2a$05$");
+    }
+
+    @Test
+    void passwordWithTheCurrentCostIsNotRewritten() {
+        userWithPasswordHashedAt(4);
+
+        providerWithStrength(4).authenticate(new UsernamePasswordAuthenticationToken("0912345678", "secret"));
+
+        verify(userRepository, never()).save(any());
+    }
+}
@@ -0,0 +1,65 @@
+package com.project.shopapp.configurations;
+
+import org.apache.coyote.ProtocolHandler;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class VirtualThreadConfigTest {
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withUserConfiguration(VirtualThreadConfig.class);
+
+    private static boolean virtualThreadsAvailable() {
+        return Runtime.version().feature() >= 21;
+    }
+
+    @Test
+    void disabledByDefault() {
+        contextRunner.run(context -> assertThat(context).doesNotHaveBean(VirtualThreadConfig.class));
+    }
+
+    @Test
+    void enablingOnJava17FailsAtStartupWithAClearMessage() {
+        assumeTrue(!virtualThreadsAvailable());
+
+        assertThatThrownBy(() -> new VirtualThreadConfig().taskScheduler())
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("Java 21");
+        TomcatProtocolHandlerCustomizer<ProtocolHandler> customizer = castCustomizer();
+        assertThatThrownBy(() -> customizer.customize(mock(ProtocolHandler.class)))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void enablingOnJava21RunsRequestsAndSchedulingOnVirtualThreads() {
+        assumeTrue(virtualThreadsAvailable());
+
+        ThreadPoolTaskScheduler scheduler = new VirtualThreadConfig().taskScheduler();
+        ThreadFactory threadFactory = (ThreadFactory) ReflectionTestUtils.getField(scheduler, "threadFactory");
+        Thread worker = threadFactory.newThread(() -> { });
+        assertThat(worker.getName()).isEqualTo("scheduling-0");
+        assertThat(worker.toString()).startsWith("VirtualThread");
+
+        ProtocolHandler protocolHandler = mock(ProtocolHandler.class);
+        castCustomizer().customize(protocolHandler);
+        verify(protocolHandler).setExecutor(any(Executor.class));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static TomcatProtocolHandlerCustomizer<ProtocolHandler> castCustomizer() {
+        return (TomcatProtocolHandlerCustomizer<ProtocolHandler>)
+                new VirtualThreadConfig().virtualThreadProtocolHandlerCustomizer();
+    }
+}
@@ -0,0 +1,170 @@
+package com.project.shopapp.controllers;
+
+import com.project.shopapp.components.LocalizationUtils;
+import com.project.shopapp.models.Role;
+import com.project.shopapp.models.User;
+import com.project.shopapp.responses.OrderHistoryResponse;
+import com.project.shopapp.responses.OrderSummaryResponse;
+import com.project.shopapp.services.IOrderService;
+import com.project.shopapp.services.order.IOrderExportService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class OrderControllerTest {
+    private IOrderService orderService;
+    private IOrderExportService orderExportService;
+    private OrderController orderController;
+
+    @BeforeEach
+    void setUp() {
+        orderService = mock(IOrderService.class);
+        orderExportService = mock(IOrderExportService.class);
+        orderController = new OrderController(orderService, mock(LocalizationUtils.class), orderExportService);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    private static List<OrderSummaryResponse> orders(long... ids) {
+        List<OrderSummaryResponse> orders = new ArrayList<>();
+        for (long id : ids) {
+            orders.add(OrderSummaryResponse.builder().id(id).build());
+        }
+        return orders;
+    }
+
+    @Test
+    void historyPageFetchesOneExtraOrderToDetectTheNextPage() {
+        when(orderService.findOrderHistory(4L, 100L, 3)).thenReturn(orders(99, 97, 90));
+
+        ResponseEntity<?> response = orderController.getOrderHistory(4L, 100L, 2);
+
+        OrderHistoryResponse body = (OrderHistoryResponse) response.getBody();
+        assertThat(body.getOrders()).extracting(OrderSummaryResponse::getId).containsExactly(99L, 97L);
+        assertThat(body.isHasMore()).isTrue();
+        assertThat(body.getNextBeforeId()).isEqualTo(97L);
+    }
+
+    @Test
+    void lastHistoryPageHasNoNextCursor() {
+        when(orderService.findOrderHistory(4L, 0L, 3)).thenReturn(orders(5));
+
+        OrderHistoryResponse body = (OrderHistoryResponse) orderController.getOrderHistory(4L, 0L, 2).getBody();
+
+        assertThat(body.isHasMore()).isFalse();
+        assertThat(body.getNextBeforeId()).isNull();
+    }
+
+    @Test
+    void historyLimitIsClampedAndMustBePositive() {
+        when(orderService.findOrderHistory(eq(4L), anyLong(), anyInt())).thenReturn(List.of());
+
+        orderController.getOrderHistory(4L, 0L, Integer.MAX_VALUE);
+        verify(orderService).findOrderHistory(4L, 0L, 101);
+
+        assertThat(orderController.getOrderHistory(4L, 0L, 0).getStatusCode().value()).isEqualTo(400);
+    }
+
+    @Test
+    void csvExportIsStreamedAsAnAttachment() throws IOException {
+        LocalDate from = LocalDate.of(2024, 1, 1);
+        doAnswer(invocation -> {
+            Writer writer = invocation.getArgument(2);
+            writer.write("order_id\r\n1\r\n");
+            writer.flush();
+            return null;
+        }).when(orderExportService).exportCsv(eq(from), isNull(), any(Writer.class));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        orderController.exportOrders("CSV", from, null, response);
+
+        assertThat(response.getContentType()).startsWith("text/csv");
+        assertThat(response.getHeader(HttpHeaders.CONTENT_DISPOSITION))
+                .isEqualTo("attachment; filename=\"orders.csv\"");
+        assertThat(response.getContentAsString()).isEqualTo("order_id\r\n1\r\n");
+    }
+
+    @Test
+    void ndjsonExportUsesTheNdjsonWriter() throws IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        orderController.exportOrders("ndjson", null, null, response);
+
+        assertThat(response.getContentType()).startsWith("application/x-ndjson");
+        verify(orderExportService).exportNdjson(isNull(), isNull(), any(Writer.class));
+        verify(orderExportService, never()).exportCsv(any(), any(), any());
+    }
+
+    @Test
+    void unknownExportFormatIsRejected() throws IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        orderController.exportOrders("xlsx", null, null, response);
+
+        assertThat(response.getStatus()).isEqualTo(400);
+        verifyNoInteractions(orderExportService);
+    }
+
+    @Configuration
+    @EnableMethodSecurity
+    static class MethodSecurityConfig {
+    }
+
+    private static void signIn(long userId, String role) {
+        User user = User.builder().id(userId).phoneNumber("09" + userId).role(new Role(1L, role)).build();
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+    }
+
+    @Test
+    void usersCanOnlyReadTheirOwnHistory() {
+        try (AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext()) {
+            context.register(MethodSecurityConfig.class);
+            context.registerBean(OrderController.class, () -> orderController);
+            context.refresh();
+            OrderController securedController = context.getBean(OrderController.class);
+            when(orderService.findOrderHistory(eq(4L), anyLong(), anyInt())).thenReturn(List.of());
+
+            signIn(4L, Role.USER);
+            assertThat(securedController.getOrderHistory(4L, 0L, 10).getStatusCode().value()).isEqualTo(200);
+            assertThatThrownBy(() -> securedController.getOrderHistory(5L, 0L, 10))
+                    .isInstanceOf(AccessDeniedException.class);
+
+            signIn(1L, Role.ADMIN);
+            assertThat(securedController.getOrderHistory(4L, 0L, 10).getStatusCode().value()).isEqualTo(200);
+        }
+        verify(orderService, never()).findOrderHistory(eq(5L), anyLong(), anyInt());
+    }
+}
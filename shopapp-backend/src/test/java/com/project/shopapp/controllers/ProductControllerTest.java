@@ -0,0 +1,236 @@
+package com.project.shopapp.controllers;
+
+import com.project.shopapp.components.LocalizationUtils;
+import com.project.shopapp.repositories.CategoryRepository;
+import com.project.shopapp.repositories.ProductBatchRepository;
+import com.project.shopapp.repositories.ProductImageRepository;
+import com.project.shopapp.repositories.ProductRepository;
+import com.project.shopapp.repositories.ProductSummary;
+import com.project.shopapp.responses.ProductCursorListResponse;
+import com.project.shopapp.responses.ProductListResponse;
+import com.project.shopapp.responses.ProductResponse;
+import com.project.shopapp.services.IProductService;
+import com.project.shopapp.services.ProductService;
+import com.project.shopapp.services.image.IImageFileService;
+import com.project.shopapp.services.image.ImageFile;
+import com.project.shopapp.services.image.IImageVariantService;
+import com.project.shopapp.services.product.CachedProductList;
+import com.project.shopapp.services.product.IProductRedisService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class ProductControllerTest {
+    private IProductService productService;
+    private IProductRedisService productRedisService;
+    private IImageFileService imageFileService;
+    private IImageVariantService imageVariantService;
+    private ProductController productController;
+
+    @BeforeEach
+    void setUp() {
+        productService = mock(IProductService.class);
+        productRedisService = mock(IProductRedisService.class);
+        imageFileService = mock(IImageFileService.class);
+        imageVariantService = mock(IImageVariantService.class);
+        productController = new ProductController(productService, productRedisService,
+                mock(LocalizationUtils.class), imageFileService, imageVariantService);
+    }
+
+    @Test
+    void getProductsWritesTheCachedBodyWithItsEtag() throws Exception {
+        CachedProductList cached = new CachedProductList(
+                "{\"products\":[],\"totalPages\":0}".getBytes(StandardCharsets.UTF_8), Long.MAX_VALUE);
+        when(productRedisService.getProductList(eq("iphone"), eq(2L), any(PageRequest.class), any()))
+                .thenReturn(cached);
+
+        ResponseEntity<byte[]> response = productController.getProducts(" iphone ", 2L, 0, 10);
+
+        assertThat(response.getBody()).isSameAs(cached.getBody());
+        assertThat(response.getHeaders().getFirst(HttpHeaders.ETAG)).isEqualTo(cached.getEtag());
+    }
+
+    @Test
+    void keywordSearchIsReturnedInRelevanceOrder() throws Exception {
+        ProductRepository productRepository = mock(ProductRepository.class);
+        List<ProductSummary> byRelevance = List.of(summary(7), summary(3), summary(5));
+        when(productRepository.searchProductsByFullText(0L, "+iphone*", null, PageRequest.of(0, 10)))
+                .thenReturn(new PageImpl<>(byRelevance, PageRequest.of(0, 10), 3));
+        AtomicReference<ProductListResponse> loaded = new AtomicReference<>();
+        givenCacheMissLoadingInto(loaded);
+        ProductController controller = new ProductController(
+                new ProductService(productRepository, mock(CategoryRepository.class),
+                        mock(ProductImageRepository.class), mock(ProductBatchRepository.class), productRedisService),
+                productRedisService, mock(LocalizationUtils.class), imageFileService, imageVariantService);
+
+        controller.getProducts("iphone", 0L, 0, 10);
+
+        assertThat(loaded.get().getProducts()).extracting(ProductResponse::getId).containsExactly(7L, 3L, 5L);
+        verify(productRepository, never()).searchProductsByFullTextSorted(any(), any(), any(), any());
+    }
+
+    @Test
+    void listingWithoutKeywordKeepsTheIdOrder() throws Exception {
+        givenCacheMissLoadingInto(new AtomicReference<>());
+        when(productService.getAllProducts(any(), any(), any())).thenReturn(new PageImpl<>(List.of()));
+
+        productController.getProducts("", 0L, 1, 10);
+
+        verify(productService).getAllProducts("", 0L, PageRequest.of(1, 10, Sort.by("id").ascending()));
+    }
+
+    @Test
+    void cursorPageFetchesOneExtraRowToDetectTheNextPage() {
+        when(productService.getProductsAfter("", 0L, 20L, 3)).thenReturn(products(21, 22, 23));
+
+        ResponseEntity<?> response = productController.getProductsByCursor("", 0L, 20L, 2, false);
+
+        ProductCursorListResponse body = (ProductCursorListResponse) response.getBody();
+        assertThat(body.getProducts()).extracting(ProductResponse::getId).containsExactly(21L, 22L);
+        assertThat(body.isHasMore()).isTrue();
+        assertThat(body.getNextAfterId()).isEqualTo(22L);
+        assertThat(body.getTotal()).isNull();
+        verify(productService, never()).countProducts(any(), any());
+    }
+
+    @Test
+    void lastCursorPageHasNoNextCursor() {
+        when(productService.getProductsAfter("", 0L, 20L, 3)).thenReturn(products(21, 22));
+
+        ResponseEntity<?> response = productController.getProductsByCursor("", 0L, 20L, 2, false);
+
+        ProductCursorListResponse body = (ProductCursorListResponse) response.getBody();
+        assertThat(body.getProducts()).hasSize(2);
+        assertThat(body.isHasMore()).isFalse();
+        assertThat(body.getNextAfterId()).isNull();
+    }
+
+    @Test
+    void cursorLimitIsClampedAndTotalIsOnlyCountedOnRequest() {
+        when(productService.getProductsAfter(eq("iphone"), eq(0L), eq(0L), anyInt())).thenReturn(List.of());
+        when(productService.countProducts("iphone", 0L)).thenReturn(42L);
+
+        ResponseEntity<?> response = productController.getProductsByCursor(" iphone ", 0L, 0L, Integer.MAX_VALUE, true);
+
+        verify(productService).getProductsAfter("iphone", 0L, 0L, 101);
+        assertThat(((ProductCursorListResponse) response.getBody()).getTotal()).isEqualTo(42L);
+    }
+
+    @Test
+    void cursorLimitMustBePositive() {
+        ResponseEntity<?> response = productController.getProductsByCursor("", 0L, 0L, 0, false);
+
+        assertThat(response.getStatusCode().value()).isEqualTo(400);
+        verifyNoInteractions(productService);
+    }
+
+    // Giả lập cache miss: chạy loader và giữ lại ProductListResponse mà controller tạo ra
+    @SuppressWarnings("unchecked")
+    private void givenCacheMissLoadingInto(AtomicReference<ProductListResponse> loaded) throws Exception {
+        when(productRedisService.getProductList(any(), any(), any(PageRequest.class), any()))
+                .thenAnswer(invocation -> {
+                    loaded.set(((Supplier<ProductListResponse>) invocation.getArgument(3)).get());
+                    return new CachedProductList(new byte[0], Long.MAX_VALUE);
+                });
+    }
+
+    private static ProductSummary summary(long id) {
+        ProductSummary product = mock(ProductSummary.class);
+        when(product.getId()).thenReturn(id);
+        return product;
+    }
+
+    private static List<ProductResponse> products(long... ids) {
+        List<ProductResponse> products = new ArrayList<>();
+        for (long id : ids) {
+            products.add(ProductResponse.builder().id(id).build());
+        }
+        return products;
+    }
+
+    private static ImageFile imageFile(String name) {
+        return new ImageFile(Path.of(name), "image/jpeg", 1, 0, "\"" + name + "\"");
+    }
+
+    @Test
+    void requestedSizeIsServedFromTheVariantAndCachedForever() throws Exception {
+        ImageFile variant = imageFile("variants/256/a.png.jpg");
+        when(imageVariantService.resolveVariantName("a.png", 200)).thenReturn("variants/256/a.png.jpg");
+        when(imageFileService.getImage("variants/256/a.png.jpg")).thenReturn(variant);
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        productController.viewImage("a.png", 200, request, response);
+
+        verify(imageFileService).writeImage(variant, true, request, response);
+    }
+
+    @Test
+    void originalServedInPlaceOfAMissingVariantIsNotCachedForever() throws Exception {
+        ImageFile original = imageFile("a.png");
+        when(imageVariantService.resolveVariantName("a.png", 200)).thenReturn("variants/256/a.png.jpg");
+        when(imageFileService.getImage("a.png")).thenReturn(original);
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        productController.viewImage("a.png", 200, request, response);
+
+        verify(imageFileService).writeImage(original, false, request, response);
+    }
+
+    @Test
+    void sizeLargerThanEveryVariantServesTheOriginalAsImmutable() throws Exception {
+        ImageFile original = imageFile("a.png");
+        when(imageFileService.getImage("a.png")).thenReturn(original);
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        productController.viewImage("a.png", 5000, request, response);
+
+        verify(imageFileService).writeImage(original, true, request, response);
+    }
+
+    @Test
+    void missingImageFallsBackToNotFoundImage() throws Exception {
+        ImageFile notFound = imageFile("notfound.jpeg");
+        when(imageFileService.getImage("notfound.jpeg")).thenReturn(notFound);
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        productController.viewImage("missing.png", null, request, response);
+
+        verify(imageFileService).writeImage(notFound, false, request, response);
+    }
+
+    @Test
+    void noImageAtAllReturns404() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        productController.viewImage("missing.png", null, new MockHttpServletRequest(), response);
+
+        assertThat(response.getStatus()).isEqualTo(404);
+    }
+}
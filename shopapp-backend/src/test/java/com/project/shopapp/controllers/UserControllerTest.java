@@ -0,0 +1,56 @@
+package com.project.shopapp.controllers;
+
+import com.project.shopapp.components.LocalizationUtils;
+import com.project.shopapp.dtos.UserLoginDTO;
+import com.project.shopapp.exceptions.ServiceBusyException;
+import com.project.shopapp.responses.LoginResponse;
+import com.project.shopapp.services.IUserService;
+import com.project.shopapp.services.token.ITokenService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class UserControllerTest {
+    private IUserService userService;
+    private ITokenService tokenService;
+    private UserController userController;
+
+    @BeforeEach
+    void setUp() {
+        userService = mock(IUserService.class);
+        tokenService = mock(ITokenService.class);
+        userController = new UserController(userService, mock(LocalizationUtils.class), tokenService);
+    }
+
+    private static UserLoginDTO login() {
+        return UserLoginDTO.builder().phoneNumber("0912345678").password("secret").build();
+    }
+
+    @Test
+    void loginIsUnavailableWhileTheHashingPoolIsFull() throws Exception {
+        when(userService.login("0912345678", "secret"))
+                .thenThrow(new ServiceBusyException("Too many login requests"));
+
+        ResponseEntity<LoginResponse> response = userController.login(login(), new MockHttpServletRequest());
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        assertThat(response.getBody().getMessage()).isEqualTo("Too many login requests");
+        verifyNoInteractions(tokenService);
+    }
+
+    @Test
+    void wrongPasswordIsStillABadRequest() throws Exception {
+        when(userService.login("0912345678", "secret")).thenThrow(new Exception("Wrong password"));
+
+        ResponseEntity<LoginResponse> response = userController.login(login(), new MockHttpServletRequest());
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+}
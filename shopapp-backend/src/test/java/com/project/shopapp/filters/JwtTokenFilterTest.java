@@ -0,0 +1,93 @@
+package com.project.shopapp.filters;
+
+import com.project.shopapp.components.JwtTokenUtils;
+import com.project.shopapp.components.PublicEndpoints;
+import com.project.shopapp.models.Role;
+import com.project.shopapp.models.User;
+import com.project.shopapp.services.auth.AuthPrincipal;
+import com.project.shopapp.services.auth.IAuthCacheService;
+import com.project.shopapp.services.token.ITokenService;
+import com.project.shopapp.utils.HashUtils;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetailsService;
+
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class JwtTokenFilterTest {
+    private final JwtTokenUtils jwtTokenUtils = mock(JwtTokenUtils.class);
+    private final IAuthCacheService authCacheService = mock(IAuthCacheService.class);
+    private final PublicEndpoints publicEndpoints = mock(PublicEndpoints.class);
+    private final UserDetailsService userDetailsService = mock(UserDetailsService.class);
+    private final JwtTokenFilter jwtTokenFilter = new JwtTokenFilter(userDetailsService,
+            jwtTokenUtils, authCacheService, publicEndpoints, mock(ITokenService.class));
+
+    @AfterEach
+    void clearSecurityContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void publicEndpointSkipsTokenChecks() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/products");
+        FilterChain filterChain = mock(FilterChain.class);
+        when(publicEndpoints.matches(request)).thenReturn(true);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        jwtTokenFilter.doFilter(request, response, filterChain);
+
+        verify(filterChain).doFilter(request, response);
+        verifyNoInteractions(jwtTokenUtils, authCacheService);
+    }
+
+    @Test
+    void protectedEndpointWithoutBearerTokenIsRejected() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/orders/1");
+        FilterChain filterChain = mock(FilterChain.class);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        jwtTokenFilter.doFilter(request, response, filterChain);
+
+        assertThat(response.getStatus()).isEqualTo(401);
+        verify(filterChain, never()).doFilter(request, response);
+    }
+
+    @Test
+    void authenticatedPrincipalIsTheCachedSnapshot() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/orders/1");
+        request.addHeader("Authorization", "Bearer token");
+        FilterChain filterChain = mock(FilterChain.class);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        when(jwtTokenUtils.extractPhoneNumber("token")).thenReturn("0912345678");
+        when(userDetailsService.loadUserByUsername("0912345678")).thenReturn(User.builder()
+                .id(1L).phoneNumber("0912345678").password("$2a$10$hash").role(new Role(2L, "admin")).build());
+        when(authCacheService.getPrincipal(eq("0912345678"), any()))
+                .thenAnswer(invocation -> invocation.<Supplier<AuthPrincipal>>getArgument(1).get());
+        when(authCacheService.isTokenActive(eq("token"), any())).thenReturn(true);
+        when(jwtTokenUtils.validateToken(eq("token"), any())).thenReturn(true);
+
+        jwtTokenFilter.doFilter(request, response, filterChain);
+
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        assertThat(authentication.getPrincipal()).isEqualTo(
+                new AuthPrincipal(1L, "0912345678", "admin", false, HashUtils.sha256Hex("$2a$10$hash")));
+        assertThat(authentication.getAuthorities()).extracting(GrantedAuthority::getAuthority)
+                .containsExactly("ROLE_ADMIN");
+        verify(filterChain).doFilter(request, response);
+    }
+}
@@ -0,0 +1,25 @@
+package com.project.shopapp.models;
+
+import com.project.shopapp.utils.HashUtils;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenTest {
+    @Test
+    void hashesFollowTheTokenValues() {
+        Token token = Token.builder().token("access").refreshToken("refresh").build();
+
+        token.updateHashes();
+
+        assertThat(token.getTokenHash()).isEqualTo(HashUtils.sha256Hex("access"));
+        assertThat(token.getRefreshTokenHash()).isEqualTo(HashUtils.sha256Hex("refresh"));
+
+        token.setToken("rotated");
+        token.setRefreshToken("");
+        token.updateHashes();
+
+        assertThat(token.getTokenHash()).isEqualTo(HashUtils.sha256Hex("rotated"));
+        assertThat(token.getRefreshTokenHash()).isNull();
+    }
+}
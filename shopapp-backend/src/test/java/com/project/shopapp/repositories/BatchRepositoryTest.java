@@ -0,0 +1,79 @@
+package com.project.shopapp.repositories;
+
+import com.project.shopapp.models.Category;
+import com.project.shopapp.models.Order;
+import com.project.shopapp.models.OrderDetail;
+import com.project.shopapp.models.Product;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class BatchRepositoryTest {
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void orderDetailsAreInsertedInOneJdbcBatch() throws Exception {
+        Order order = Order.builder().id(7L).build();
+        List<OrderDetail> orderDetails = List.of(
+                OrderDetail.builder().order(order).product(Product.builder().id(10L).build())
+                        .price(5f).numberOfProducts(2).totalMoney(10f).color("red").build(),
+                OrderDetail.builder().order(order).product(Product.builder().id(20L).build())
+                        .price(7f).numberOfProducts(1).build());
+
+        new OrderDetailBatchRepository(jdbcTemplate).insertAll(orderDetails);
+
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<ParameterizedPreparedStatementSetter<OrderDetail>> setter =
+                ArgumentCaptor.forClass(ParameterizedPreparedStatementSetter.class);
+        verify(jdbcTemplate).batchUpdate(sql.capture(), eq(orderDetails), eq(500), setter.capture());
+        assertThat(sql.getValue()).startsWith("INSERT INTO order_details");
+
+        PreparedStatement ps = mock(PreparedStatement.class);
+        setter.getValue().setValues(ps, orderDetails.get(0));
+        verify(ps).setLong(1, 7L);
+        verify(ps).setLong(2, 10L);
+        verify(ps).setObject(3, 5f, Types.FLOAT);
+        verify(ps).setInt(4, 2);
+        verify(ps).setObject(5, 10f, Types.FLOAT);
+        verify(ps).setString(6, "red");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void productsAreInsertedInOneJdbcBatchWithTimestamps() throws Exception {
+        List<Product> products = List.of(
+                Product.builder().name("a").price(1f).category(Category.builder().id(3L).build()).build(),
+                Product.builder().name("b").price(2f).build());
+
+        new ProductBatchRepository(jdbcTemplate).insertAll(products);
+
+        ArgumentCaptor<ParameterizedPreparedStatementSetter<Product>> setter =
+                ArgumentCaptor.forClass(ParameterizedPreparedStatementSetter.class);
+        verify(jdbcTemplate).batchUpdate(anyString(), eq(products), eq(1000), setter.capture());
+
+        PreparedStatement ps = mock(PreparedStatement.class);
+        setter.getValue().setValues(ps, products.get(0));
+        verify(ps).setString(1, "a");
+        verify(ps).setObject(5, 3L, Types.BIGINT);
+        verify(ps).setTimestamp(eq(6), any(Timestamp.class));
+        verify(ps).setTimestamp(eq(7), any(Timestamp.class));
+
+        PreparedStatement withoutCategory = mock(PreparedStatement.class);
+        setter.getValue().setValues(withoutCategory, products.get(1));
+        verify(withoutCategory).setObject(5, null, Types.BIGINT);
+    }
+}
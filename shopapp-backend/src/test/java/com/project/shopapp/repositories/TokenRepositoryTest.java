@@ -0,0 +1,31 @@
+package com.project.shopapp.repositories;
+
+import com.project.shopapp.models.Token;
+import com.project.shopapp.utils.HashUtils;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.CALLS_REAL_METHODS;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
+class TokenRepositoryTest {
+    private final TokenRepository tokenRepository = mock(TokenRepository.class, CALLS_REAL_METHODS);
+
+    @Test
+    void tokenLookupGoesThroughTheIndexedHash() {
+        Token token = Token.builder().id(1L).build();
+        doReturn(token).when(tokenRepository).findByTokenHash(HashUtils.sha256Hex("access"));
+
+        assertThat(tokenRepository.findByToken("access")).isSameAs(token);
+        assertThat(tokenRepository.findByToken("other")).isNull();
+    }
+
+    @Test
+    void refreshTokenLookupGoesThroughTheIndexedHash() {
+        Token token = Token.builder().id(2L).build();
+        doReturn(token).when(tokenRepository).findByRefreshTokenHash(HashUtils.sha256Hex("refresh"));
+
+        assertThat(tokenRepository.findByRefreshToken("refresh")).isSameAs(token);
+    }
+}
@@ -0,0 +1,228 @@
+package com.project.shopapp.services;
+
+import com.project.shopapp.dtos.CartItemDTO;
+import com.project.shopapp.dtos.OrderDTO;
+import com.project.shopapp.exceptions.DataNotFoundException;
+import com.project.shopapp.models.Order;
+import com.project.shopapp.models.OrderDetail;
+import com.project.shopapp.models.Product;
+import com.project.shopapp.models.User;
+import com.project.shopapp.repositories.OrderDetailBatchRepository;
+import com.project.shopapp.repositories.OrderDetailRepository;
+import com.project.shopapp.repositories.OrderRepository;
+import com.project.shopapp.repositories.OrderSummary;
+import com.project.shopapp.repositories.ProductRepository;
+import com.project.shopapp.repositories.UserRepository;
+import com.project.shopapp.responses.OrderResponse;
+import com.project.shopapp.responses.OrderSummaryResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.modelmapper.ModelMapper;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+class OrderServiceTest {
+    private UserRepository userRepository;
+    private OrderRepository orderRepository;
+    private ProductRepository productRepository;
+    private OrderDetailRepository orderDetailRepository;
+    private OrderDetailBatchRepository orderDetailBatchRepository;
+    private OrderService orderService;
+
+    @BeforeEach
+    void setUp() {
+        userRepository = mock(UserRepository.class);
+        orderRepository = mock(OrderRepository.class);
+        productRepository = mock(ProductRepository.class);
+        orderDetailRepository = mock(OrderDetailRepository.class);
+        orderDetailBatchRepository = mock(OrderDetailBatchRepository.class);
+        orderService = new OrderService(userRepository, orderRepository, productRepository,
+                orderDetailRepository, orderDetailBatchRepository, new ModelMapper());
+        when(userRepository.findById(1L)).thenReturn(Optional.of(User.builder().id(1L).build()));
+    }
+
+    private static OrderDTO orderWithItems(CartItemDTO... cartItems) {
+        return OrderDTO.builder()
+                .userId(1L)
+                .phoneNumber("0912345678")
+                .totalMoney(100f)
+                .cartItems(List.of(cartItems))
+                .build();
+    }
+
+    private static CartItemDTO item(long productId, int quantity) {
+        return CartItemDTO.builder().productId(productId).quantity(quantity).build();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void checkoutLoadsAllCartProductsInOneQuery() throws Exception {
+        when(productRepository.findProductsByIds(List.of(10L, 20L))).thenReturn(List.of(
+                Product.builder().id(10L).price(5f).build(),
+                Product.builder().id(20L).price(7f).build()));
+
+        Order order = orderService.createOrder(orderWithItems(item(10, 1), item(20, 2), item(10, 3)));
+
+        verify(productRepository).findProductsByIds(List.of(10L, 20L));
+        verify(productRepository, never()).findById(anyLong());
+        ArgumentCaptor<List<OrderDetail>> details = ArgumentCaptor.forClass(List.class);
+        verify(orderDetailBatchRepository).insertAll(details.capture());
+        assertThat(details.getValue())
+                .extracting(detail -> detail.getProduct().getId(), OrderDetail::getNumberOfProducts,
+                        OrderDetail::getPrice)
+                .containsExactly(
+                        tuple(10L, 1, 5f),
+                        tuple(20L, 2, 7f),
+                        tuple(10L, 3, 5f));
+        assertThat(details.getValue()).allMatch(detail -> detail.getOrder() == order);
+    }
+
+    @Test
+    void checkoutFailsBeforeSavingWhenAProductIsMissing() {
+        when(productRepository.findProductsByIds(List.of(10L, 20L)))
+                .thenReturn(List.of(Product.builder().id(10L).price(5f).build()));
+
+        assertThatThrownBy(() -> orderService.createOrder(orderWithItems(item(10, 1), item(20, 1))))
+                .isInstanceOf(DataNotFoundException.class)
+                .hasMessageContaining("[20]");
+        verify(orderRepository, never()).save(any());
+        verify(orderDetailBatchRepository, never()).insertAll(anyList());
+    }
+
+    private static Order order(long id) {
+        return Order.builder().id(id).totalMoney(10f).user(User.builder().id(1L).build()).build();
+    }
+
+    private static OrderDetail detail(Order order, long productId) {
+        return OrderDetail.builder().order(order).product(Product.builder().id(productId).build()).build();
+    }
+
+    @Test
+    void orderPageUsesAFixedNumberOfQueries() {
+        PageRequest pageRequest = PageRequest.of(0, 10);
+        Order first = order(1);
+        Order second = order(2);
+        Order third = order(3);
+        when(orderRepository.findByKeyword("", pageRequest))
+                .thenReturn(new PageImpl<>(List.of(first, second, third), pageRequest, 3));
+        when(orderDetailRepository.findWithProductsByOrderIds(List.of(1L, 2L, 3L))).thenReturn(List.of(
+                detail(first, 10), detail(first, 20), detail(third, 10)));
+
+        Page<OrderResponse> orders = orderService.getOrdersByKeyword("", pageRequest);
+
+        verify(orderRepository).findByKeyword("", pageRequest);
+        verify(orderDetailRepository).findWithProductsByOrderIds(List.of(1L, 2L, 3L));
+        verify(productRepository).fetchProductImages(Set.of(10L, 20L));
+        verifyNoMoreInteractions(orderRepository, orderDetailRepository, productRepository);
+        assertThat(orders.getContent()).extracting(order -> order.getOrderDetails().size())
+                .containsExactly(2, 0, 1);
+    }
+
+    @Test
+    void emptyOrderPageSkipsTheDetailQueries() {
+        PageRequest pageRequest = PageRequest.of(5, 10);
+        when(orderRepository.findByKeyword("", pageRequest)).thenReturn(Page.empty(pageRequest));
+
+        assertThat(orderService.getOrdersByKeyword(null, pageRequest)).isEmpty();
+
+        verifyNoMoreInteractions(orderDetailRepository, productRepository);
+    }
+
+    @Test
+    void historyStartsFromTheNewestOrderWithoutACursor() {
+        orderService.findOrderHistory(4L, 0L, 11);
+        orderService.findOrderHistory(4L, null, 11);
+
+        verify(orderRepository, times(2)).findSummariesByUserIdBefore(4L, Long.MAX_VALUE, PageRequest.of(0, 11));
+    }
+
+    @Test
+    void historySeeksBelowTheCursor() {
+        OrderSummary summary = mock(OrderSummary.class);
+        when(summary.getId()).thenReturn(119L);
+        when(orderRepository.findSummariesByUserIdBefore(4L, 120L, PageRequest.of(0, 11)))
+                .thenReturn(List.of(summary));
+
+        assertThat(orderService.findOrderHistory(4L, 120L, 11))
+                .extracting(OrderSummaryResponse::getId)
+                .containsExactly(119L);
+    }
+
+    @Test
+    void digitsAreMatchedExactlyAgainstOrderIdAndPhoneNumber() {
+        Page<Order> match = new PageImpl<>(List.of(order(1024)));
+        PageRequest pageRequest = PageRequest.of(0, 10);
+        when(orderRepository.findActiveByIdOrPhoneNumber(1024L, "1024", pageRequest)).thenReturn(match);
+
+        assertThat(orderService.getOrdersByKeyword(" 1024 ", pageRequest).getContent())
+                .extracting(OrderResponse::getId).containsExactly(1024L);
+        verify(orderRepository, never()).searchOrderIdsByFullText(any(), any(), any());
+    }
+
+    @Test
+    void numberTooLongForAnOrderIdIsOnlyComparedWithPhoneNumbers() {
+        PageRequest pageRequest = PageRequest.of(0, 10);
+        when(orderRepository.findActiveByIdOrPhoneNumber(any(), any(), any())).thenReturn(Page.empty());
+        when(orderRepository.searchOrderIdsByFullText(any(), any(), any())).thenReturn(Page.empty());
+
+        orderService.getOrdersByKeyword("+8491234567890123456", pageRequest);
+
+        verify(orderRepository).findActiveByIdOrPhoneNumber(null, "+8491234567890123456", pageRequest);
+    }
+
+    @Test
+    void partialEmailFallsBackToAnEscapedPrefixMatch() {
+        PageRequest pageRequest = PageRequest.of(0, 10);
+        when(orderRepository.findActiveByEmail("jo_hn@exa", pageRequest)).thenReturn(Page.empty());
+        when(orderRepository.findActiveByEmailPrefix("jo\\_hn@exa%", pageRequest))
+                .thenReturn(new PageImpl<>(List.of(order(7))));
+
+        assertThat(orderService.getOrdersByKeyword("jo_hn@exa", pageRequest).getContent())
+                .extracting(OrderResponse::getId).containsExactly(7L);
+    }
+
+    @Test
+    void fullTextMatchesKeepTheRelevanceOrder() {
+        PageRequest pageRequest = PageRequest.of(1, 2, Sort.by("id"));
+        when(orderRepository.searchOrderIdsByFullText("+nguyen* +hanoi*", "%vu%", PageRequest.of(1, 2)))
+                .thenReturn(new PageImpl<>(List.of(3L, 1L), PageRequest.of(1, 2), 4));
+        when(orderRepository.findWithUsersByIdIn(List.of(3L, 1L))).thenReturn(List.of(order(1), order(3)));
+
+        Page<OrderResponse> orders = orderService.getOrdersByKeyword("nguyen vu hanoi", pageRequest);
+
+        assertThat(orders.getContent()).extracting(OrderResponse::getId).containsExactly(3L, 1L);
+        assertThat(orders.getTotalElements()).isEqualTo(4);
+        verify(orderRepository, never()).findByKeyword(any(), any());
+    }
+
+    @Test
+    void shortKeywordUsesLike() {
+        PageRequest pageRequest = PageRequest.of(0, 10);
+        when(orderRepository.findByKeyword("an", pageRequest)).thenReturn(Page.empty());
+
+        orderService.getOrdersByKeyword("an", pageRequest);
+
+        verify(orderRepository).findByKeyword("an", pageRequest);
+        verify(orderRepository, never()).searchOrderIdsByFullText(any(), any(), any());
+    }
+}
@@ -0,0 +1,187 @@
+package com.project.shopapp.services;
+
+import com.project.shopapp.dtos.ProductDTO;
+import com.project.shopapp.exceptions.DataNotFoundException;
+import com.project.shopapp.models.Category;
+import com.project.shopapp.models.ProductImage;
+import com.project.shopapp.repositories.CategoryRepository;
+import com.project.shopapp.repositories.ProductBatchRepository;
+import com.project.shopapp.repositories.ProductImageRepository;
+import com.project.shopapp.repositories.ProductImageSummary;
+import com.project.shopapp.repositories.ProductRepository;
+import com.project.shopapp.repositories.ProductSummary;
+import com.project.shopapp.responses.ProductResponse;
+import com.project.shopapp.services.product.IProductRedisService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ProductServiceTest {
+    private ProductRepository productRepository;
+    private ProductImageRepository productImageRepository;
+    private CategoryRepository categoryRepository;
+    private ProductBatchRepository productBatchRepository;
+    private IProductRedisService productRedisService;
+    private ProductService productService;
+
+    @BeforeEach
+    void setUp() {
+        productRepository = mock(ProductRepository.class);
+        productImageRepository = mock(ProductImageRepository.class);
+        categoryRepository = mock(CategoryRepository.class);
+        productBatchRepository = mock(ProductBatchRepository.class);
+        productRedisService = mock(IProductRedisService.class);
+        productService = new ProductService(productRepository, categoryRepository,
+                productImageRepository, productBatchRepository, productRedisService);
+    }
+
+    static ProductSummary summary(long id) {
+        ProductSummary product = mock(ProductSummary.class);
+        when(product.getId()).thenReturn(id);
+        return product;
+    }
+
+    @Test
+    void cursorPageSeeksPastTheLastIdWithoutAnOffset() {
+        List<ProductSummary> page = List.of(summary(41), summary(45));
+        when(productRepository.searchProductsAfter(3L, "", 40L, PageRequest.of(0, 11))).thenReturn(page);
+
+        List<ProductResponse> products = productService.getProductsAfter("", 3L, 40L, 11);
+
+        assertThat(products).extracting(ProductResponse::getId).containsExactly(41L, 45L);
+    }
+
+    @Test
+    void missingCursorStartsFromTheFirstProduct() {
+        productService.getProductsAfter("", 0L, null, 11);
+
+        verify(productRepository).searchProductsAfter(0L, "", 0L, PageRequest.of(0, 11));
+        verify(productImageRepository, never()).findSummariesByProductIds(anyList());
+    }
+
+    @Test
+    void keywordSearchWithoutSortIsOrderedByRelevance() {
+        PageRequest pageRequest = PageRequest.of(0, 10);
+        when(productRepository.searchProductsByFullText(0L, "+iphone*", "%15%", pageRequest))
+                .thenReturn(Page.empty());
+
+        productService.getAllProducts("iphone 15", 0L, pageRequest);
+
+        verify(productRepository).searchProductsByFullText(0L, "+iphone*", "%15%", pageRequest);
+        verify(productRepository, never()).searchProductsByFullTextSorted(any(), any(), any(), any());
+    }
+
+    @Test
+    void keywordSearchKeepsTheRequestedSortOnColumnNames() {
+        when(productRepository.searchProductsByFullTextSorted(any(), any(), any(), any())).thenReturn(Page.empty());
+
+        productService.getAllProducts("iphone", 2L,
+                PageRequest.of(1, 10, Sort.by("createdAt").descending()));
+
+        verify(productRepository).searchProductsByFullTextSorted(2L, "+iphone*", null,
+                PageRequest.of(1, 10, Sort.by("created_at").descending()));
+    }
+
+    @Test
+    void shortKeywordFallsBackToLike() {
+        PageRequest pageRequest = PageRequest.of(0, 10, Sort.by("id"));
+        when(productRepository.searchProducts(0L, "tv", pageRequest)).thenReturn(Page.empty());
+
+        productService.getAllProducts("tv", 0L, pageRequest);
+
+        verify(productRepository).searchProducts(0L, "tv", pageRequest);
+    }
+
+    @Test
+    void unsortedShortKeywordFallsBackToLikeInIdOrder() {
+        when(productRepository.searchProducts(any(), any(), any())).thenReturn(Page.empty());
+
+        productService.getAllProducts("tv", 0L, PageRequest.of(2, 10));
+
+        verify(productRepository).searchProducts(0L, "tv", PageRequest.of(2, 10, Sort.by("id")));
+    }
+
+    @Test
+    void keywordCountUsesTheSameFullTextFilter() {
+        when(productRepository.countProductsByFullText(0L, "+iphone*", "%15%")).thenReturn(7L);
+
+        assertThat(productService.countProducts("iphone 15", 0L)).isEqualTo(7L);
+    }
+
+    @Test
+    void seededProductsUseOneCategoryQueryAndOneBatchInsert() throws Exception {
+        when(categoryRepository.findAllById(List.of(1L, 2L))).thenReturn(List.of(
+                Category.builder().id(1L).build(), Category.builder().id(2L).build()));
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            productService.createProducts(List.of(productDTO(1L), productDTO(2L), productDTO(1L)));
+
+            verify(categoryRepository).findAllById(List.of(1L, 2L));
+            verify(productBatchRepository).insertAll(argThat(products -> products.size() == 3));
+            verify(productRedisService, never()).clearCache();
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            verify(productRedisService).clearCache();
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void seededProductsWithAnUnknownCategoryAreRejected() {
+        when(categoryRepository.findAllById(List.of(9L))).thenReturn(List.of());
+
+        assertThatThrownBy(() -> productService.createProducts(List.of(productDTO(9L))))
+                .isInstanceOf(DataNotFoundException.class);
+        verify(productBatchRepository, never()).insertAll(anyList());
+    }
+
+    private static ProductDTO productDTO(long categoryId) {
+        return ProductDTO.builder().name("product " + categoryId).price(1f).categoryId(categoryId).build();
+    }
+
+    static ProductImageSummary imageSummary(long id, long productId) {
+        ProductImageSummary image = mock(ProductImageSummary.class);
+        when(image.getId()).thenReturn(id);
+        when(image.getProductId()).thenReturn(productId);
+        when(image.getImageUrl()).thenReturn("image-" + id + ".jpg");
+        when(image.getVariantSizes()).thenReturn("64,256");
+        return image;
+    }
+
+    @Test
+    void imagesOfTheWholePageAreLoadedInOneQuery() {
+        PageRequest pageRequest = PageRequest.of(0, 10, Sort.by("id"));
+        List<ProductSummary> page = List.of(summary(1), summary(2), summary(3));
+        List<ProductImageSummary> images = List.of(imageSummary(10, 1), imageSummary(11, 1), imageSummary(30, 3));
+        when(productRepository.searchProducts(0L, "", pageRequest)).thenReturn(new PageImpl<>(page, pageRequest, 3));
+        when(productImageRepository.findSummariesByProductIds(List.of(1L, 2L, 3L))).thenReturn(images);
+
+        List<ProductResponse> products = productService.getAllProducts("", 0L, pageRequest).getContent();
+
+        verify(productImageRepository).findSummariesByProductIds(List.of(1L, 2L, 3L));
+        verify(productImageRepository, never()).findByProductId(any());
+        assertThat(products.get(0).getProductImages())
+                .extracting(ProductImage::getImageUrl)
+                .containsExactly("image-10.jpg", "image-11.jpg");
+        assertThat(products.get(1).getProductImages()).isEmpty();
+        assertThat(products.get(2).getProductImages()).singleElement()
+                .satisfies(image -> assertThat(image.getVariantSizes()).isEqualTo("64,256"));
+    }
+}
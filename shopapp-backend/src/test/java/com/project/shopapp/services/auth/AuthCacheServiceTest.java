@@ -0,0 +1,142 @@
+package com.project.shopapp.services.auth;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.project.shopapp.models.Role;
+import com.project.shopapp.models.User;
+import com.project.shopapp.support.InMemoryRedis;
+import com.project.shopapp.utils.HashUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AuthCacheServiceTest {
+    private InMemoryRedis redis;
+    private AuthCacheService authCacheService;
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        redis = new InMemoryRedis();
+        authCacheService = new AuthCacheService(
+                Caffeine.newBuilder().build(), Caffeine.newBuilder().build(), redis.template());
+    }
+
+    private AuthPrincipal loadUser() {
+        loads.incrementAndGet();
+        return AuthPrincipal.from(User.builder().id(1L).phoneNumber("0912345678").build());
+    }
+
+    @Test
+    void principalIsLoadedOnceUntilInvalidated() {
+        AuthPrincipal first = authCacheService.getPrincipal("0912345678", this::loadUser);
+        AuthPrincipal second = authCacheService.getPrincipal("0912345678", this::loadUser);
+
+        assertThat(second).isSameAs(first);
+        assertThat(loads).hasValue(1);
+
+        authCacheService.invalidateUser("0912345678");
+        authCacheService.getPrincipal("0912345678", this::loadUser);
+
+        assertThat(loads).hasValue(2);
+        assertThat(redis.published()).anySatisfy(message -> assertThat(message)
+                .containsExactly(AuthCacheService.INVALIDATION_CHANNEL, "user:0912345678"));
+    }
+
+    @Test
+    void cachedPrincipalIsASnapshotNotTheEntity() {
+        Role role = new Role(2L, "user");
+        User user = User.builder().id(1L).phoneNumber("0912345678").password("$2a$10$hash")
+                .active(true).role(role).build();
+        AuthPrincipal cached = authCacheService.getPrincipal("0912345678", () -> AuthPrincipal.from(user));
+
+        // Sửa entity sau khi cache (request khác, hoặc entity đã detach) không làm đổi principal
+        role.setName("admin");
+        user.setActive(false);
+        user.setPassword("$2a$10$other");
+
+        assertThat(authCacheService.getPrincipal("0912345678", this::loadUser)).isSameAs(cached);
+        assertThat(cached.roleName()).isEqualTo("user");
+        assertThat(cached.active()).isTrue();
+        assertThat(cached.getAuthorities()).extracting(GrantedAuthority::getAuthority).containsExactly("ROLE_USER");
+        assertThat(cached.getPassword()).isNull();
+        assertThat(cached.passwordHashVersion())
+                .isEqualTo(HashUtils.sha256Hex("$2a$10$hash"))
+                .isNotEqualTo(AuthPrincipal.from(user).passwordHashVersion());
+        assertThat(loads).hasValue(0);
+    }
+
+    @Test
+    void onlyActiveTokensAreCached() {
+        assertThat(authCacheService.isTokenActive("revoked", () -> {
+            loads.incrementAndGet();
+            return false;
+        })).isFalse();
+        assertThat(authCacheService.isTokenActive("revoked", () -> {
+            loads.incrementAndGet();
+            return true;
+        })).isTrue();
+        assertThat(authCacheService.isTokenActive("revoked", () -> {
+            loads.incrementAndGet();
+            return false;
+        })).isTrue();
+
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void tokenInvalidationPublishesTheHashNotTheToken() {
+        authCacheService.isTokenActive("secret-token", () -> true);
+
+        authCacheService.invalidateToken("secret-token");
+
+        assertThat(redis.published()).singleElement().satisfies(message -> assertThat(message[1])
+                .isEqualTo("token:" + HashUtils.sha256Hex("secret-token"))
+                .doesNotContain("secret-token"));
+        assertThat(authCacheService.isTokenActive("secret-token", () -> false)).isFalse();
+    }
+
+    @Test
+    void messageFromAnotherNodeEvictsThePrincipal() {
+        authCacheService.getPrincipal("0912345678", this::loadUser);
+
+        authCacheService.onMessage(new DefaultMessage(
+                AuthCacheService.INVALIDATION_CHANNEL.getBytes(StandardCharsets.UTF_8),
+                "user:0912345678".getBytes(StandardCharsets.UTF_8)), null);
+        authCacheService.getPrincipal("0912345678", this::loadUser);
+
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void valueLoadedDuringAnInvalidationIsNotCached() {
+        authCacheService.getPrincipal("0912345678", () -> {
+            authCacheService.invalidateUser("0912345678");
+            return loadUser();
+        });
+        authCacheService.getPrincipal("0912345678", this::loadUser);
+
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void invalidationInsideATransactionIsPublishedAfterCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            authCacheService.invalidateUser("0912345678");
+            assertThat(redis.published()).isEmpty();
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            assertThat(redis.published()).hasSize(1);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.project.shopapp.services.image;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ImageFileServiceTest {
+    private static final String CONTENT = "0123456789abcdefghij";
+
+    @TempDir
+    Path uploadDir;
+    private ImageFileService imageFileService;
+    private ImageFile image;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        Files.writeString(uploadDir.resolve("a.png"), CONTENT);
+        Files.writeString(uploadDir.getParent().resolve("outside.png"), "secret");
+        imageFileService = new ImageFileService(Caffeine.newBuilder().build());
+        ReflectionTestUtils.setField(imageFileService, "uploadDir", uploadDir.toString());
+        image = imageFileService.getImage("a.png");
+    }
+
+    private MockHttpServletResponse write(MockHttpServletRequest request, boolean immutable) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        imageFileService.writeImage(image, immutable, request, response);
+        return response;
+    }
+
+    @Test
+    void metadataIsReadOnceAndCached() throws Exception {
+        assertThat(image.getContentType()).isEqualTo("image/png");
+        assertThat(image.getLength()).isEqualTo(CONTENT.length());
+        assertThat(image.getEtag()).startsWith("\"").endsWith("\"");
+
+        Files.delete(uploadDir.resolve("a.png"));
+        assertThat(imageFileService.getImage("a.png")).isSameAs(image);
+    }
+
+    @Test
+    void missingFilesAndPathsOutsideTheUploadDirAreNotServed() {
+        assertThat(imageFileService.getImage("missing.png")).isNull();
+        assertThat(imageFileService.getImage("../outside.png")).isNull();
+    }
+
+    @Test
+    void fullImageIsWrittenWithCachingHeaders() throws Exception {
+        MockHttpServletResponse response = write(new MockHttpServletRequest("GET", "/a.png"), true);
+
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getContentAsString(StandardCharsets.UTF_8)).isEqualTo(CONTENT);
+        assertThat(response.getHeader(HttpHeaders.ETAG)).isEqualTo(image.getEtag());
+        assertThat(response.getHeader(HttpHeaders.CACHE_CONTROL)).contains("immutable");
+        assertThat(response.getHeader(HttpHeaders.ACCEPT_RANGES)).isEqualTo("bytes");
+        assertThat(response.getContentLengthLong()).isEqualTo(CONTENT.length());
+    }
+
+    @Test
+    void fallbackImageIsRevalidated() throws Exception {
+        MockHttpServletResponse response = write(new MockHttpServletRequest("GET", "/a.png"), false);
+
+        assertThat(response.getHeader(HttpHeaders.CACHE_CONTROL)).isEqualTo("no-cache");
+    }
+
+    @Test
+    void matchingEtagReturnsNotModifiedWithoutABody() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/a.png");
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, image.getEtag());
+
+        MockHttpServletResponse response = write(request, true);
+
+        assertThat(response.getStatus()).isEqualTo(304);
+        assertThat(response.getContentAsByteArray()).isEmpty();
+    }
+
+    @Test
+    void rangeRequestReturnsPartialContent() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/a.png");
+        request.addHeader(HttpHeaders.RANGE, "bytes=5-9");
+
+        MockHttpServletResponse response = write(request, true);
+
+        assertThat(response.getStatus()).isEqualTo(206);
+        assertThat(response.getHeader(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes 5-9/20");
+        assertThat(response.getContentAsString(StandardCharsets.UTF_8)).isEqualTo("56789");
+    }
+
+    @Test
+    void unsatisfiableRangeReturns416() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/a.png");
+        request.addHeader(HttpHeaders.RANGE, "bytes=50-60");
+
+        MockHttpServletResponse response = write(request, true);
+
+        assertThat(response.getStatus()).isEqualTo(416);
+        assertThat(response.getHeader(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes */20");
+    }
+
+    @Test
+    void staleIfRangeReturnsTheWholeImage() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/a.png");
+        request.addHeader(HttpHeaders.RANGE, "bytes=5-9");
+        request.addHeader(HttpHeaders.IF_RANGE, "\"old-etag\"");
+
+        MockHttpServletResponse response = write(request, true);
+
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getContentAsString(StandardCharsets.UTF_8)).isEqualTo(CONTENT);
+    }
+
+    @Test
+    void sendfileIsUsedWhenTheConnectorSupportsIt() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/a.png");
+        request.setAttribute("org.apache.tomcat.sendfile.support", Boolean.TRUE);
+        request.addHeader(HttpHeaders.RANGE, "bytes=5-");
+
+        MockHttpServletResponse response = write(request, true);
+
+        assertThat(response.getContentAsByteArray()).isEmpty();
+        assertThat(request.getAttribute("org.apache.tomcat.sendfile.filename")).isEqualTo(image.getPath().toString());
+        assertThat(request.getAttribute("org.apache.tomcat.sendfile.start")).isEqualTo(5L);
+        assertThat(request.getAttribute("org.apache.tomcat.sendfile.end")).isEqualTo(20L);
+    }
+
+    @Test
+    void headRequestSendsHeadersOnly() throws Exception {
+        MockHttpServletResponse response = write(new MockHttpServletRequest("HEAD", "/a.png"), true);
+
+        assertThat(response.getContentLengthLong()).isEqualTo(CONTENT.length());
+        assertThat(response.getContentAsByteArray()).isEmpty();
+    }
+}
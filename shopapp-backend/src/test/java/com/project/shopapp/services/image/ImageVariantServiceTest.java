@@ -0,0 +1,125 @@
+package com.project.shopapp.services.image;
+
+import com.project.shopapp.models.Category;
+import com.project.shopapp.models.Product;
+import com.project.shopapp.models.ProductImage;
+import com.project.shopapp.repositories.ProductImageRepository;
+import com.project.shopapp.services.product.IProductRedisService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+class ImageVariantServiceTest {
+    @TempDir
+    Path uploadDir;
+    private ProductImageRepository productImageRepository;
+    private ThreadPoolTaskExecutor imageVariantExecutor;
+    private IProductRedisService productRedisService;
+    private ImageVariantService imageVariantService;
+
+    @BeforeEach
+    void setUp() {
+        productImageRepository = mock(ProductImageRepository.class);
+        imageVariantExecutor = mock(ThreadPoolTaskExecutor.class);
+        productRedisService = mock(IProductRedisService.class);
+        // chạy ngay trên thread của test
+        doAnswer(invocation -> {
+            invocation.<Runnable>getArgument(0).run();
+            return null;
+        }).when(imageVariantExecutor).execute(any(Runnable.class));
+        imageVariantService = new ImageVariantService(productImageRepository, imageVariantExecutor,
+                productRedisService);
+        ReflectionTestUtils.setField(imageVariantService, "uploadDir", uploadDir.toString());
+        ReflectionTestUtils.setField(imageVariantService, "variantSizes", new int[]{64, 256});
+        ReflectionTestUtils.setField(imageVariantService, "jpegQuality", 0.8f);
+        ReflectionTestUtils.setField(imageVariantService, "maxPixels", 100_000_000L);
+    }
+
+    private ProductImage uploadImage(String name, int width, int height) throws Exception {
+        ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB), "png",
+                uploadDir.resolve(name).toFile());
+        return ProductImage.builder()
+                .id(1L)
+                .imageUrl(name)
+                .product(Product.builder().category(Category.builder().id(5L).build()).build())
+                .build();
+    }
+
+    private BufferedImage variant(String name, int size) throws Exception {
+        return ImageIO.read(uploadDir.resolve(imageVariantService.resolveVariantName(name, size)).toFile());
+    }
+
+    @Test
+    void variantsAreResizedRecordedAndInvalidateTheCategoryPages() throws Exception {
+        imageVariantService.generateVariantsAsync(uploadImage("a.png", 600, 300));
+
+        assertThat(variant("a.png", 256).getWidth()).isEqualTo(256);
+        assertThat(variant("a.png", 256).getHeight()).isEqualTo(128);
+        assertThat(variant("a.png", 64).getWidth()).isEqualTo(64);
+        verify(productImageRepository).updateVariantSizes(1L, "64,256");
+        verify(productRedisService).invalidateCategory(5L);
+    }
+
+    @Test
+    void smallImagesAreNotUpscaled() throws Exception {
+        imageVariantService.generateVariantsAsync(uploadImage("small.png", 100, 50));
+
+        assertThat(variant("small.png", 256).getWidth()).isEqualTo(100);
+        assertThat(variant("small.png", 64).getWidth()).isEqualTo(64);
+    }
+
+    @Test
+    void imagesOverMaxPixelsAreSkippedBeforeDecoding() throws Exception {
+        ReflectionTestUtils.setField(imageVariantService, "maxPixels", 10_000L);
+
+        imageVariantService.generateVariantsAsync(uploadImage("huge.png", 200, 100));
+
+        assertThat(uploadDir.resolve("variants")).doesNotExist();
+        verify(productImageRepository, never()).updateVariantSizes(anyLong(), anyString());
+        verifyNoInteractions(productRedisService);
+    }
+
+    @Test
+    void filesThatAreNotImagesAreSkipped() throws Exception {
+        Files.writeString(uploadDir.resolve("fake.png"), "not an image");
+
+        imageVariantService.generateVariantsAsync(ProductImage.builder().id(1L).imageUrl("fake.png").build());
+
+        verify(productImageRepository, never()).updateVariantSizes(anyLong(), anyString());
+    }
+
+    @Test
+    void fullQueueKeepsServingTheOriginal() throws Exception {
+        doThrow(new TaskRejectedException("full")).when(imageVariantExecutor).execute(any(Runnable.class));
+
+        imageVariantService.generateVariantsAsync(uploadImage("a.png", 600, 300));
+
+        verify(productImageRepository, never()).updateVariantSizes(anyLong(), anyString());
+    }
+
+    @Test
+    void smallestVariantNotSmallerThanTheRequestedSizeIsChosen() {
+        assertThat(imageVariantService.resolveVariantName("a.png", 10)).isEqualTo("variants/64/a.png.jpg");
+        assertThat(imageVariantService.resolveVariantName("a.png", 65)).isEqualTo("variants/256/a.png.jpg");
+        assertThat(imageVariantService.resolveVariantName("a.png", 1000)).isNull();
+    }
+}
@@ -0,0 +1,202 @@
+package com.project.shopapp.services.order;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.project.shopapp.repositories.OrderExportRepository;
+import com.project.shopapp.repositories.OrderExportRow;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.FilterWriter;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+class OrderExportServiceTest {
+    private static final LocalDate FROM = LocalDate.of(2024, 1, 1);
+    private static final LocalDate TO = LocalDate.of(2024, 12, 31);
+    private static final String CSV_HEADER = "order_id,user_id,fullname,email,phone_number,address,note,"
+            + "order_date,status,total_money,shipping_method,shipping_address,shipping_date,tracking_number,"
+            + "payment_method,order_detail_id,product_id,price,number_of_products,detail_total_money,color\r\n";
+
+    private OrderExportRepository orderExportRepository;
+    private ObjectMapper objectMapper;
+    private OrderExportService orderExportService;
+    // Các dòng đã được repository đưa cho service (để biết cursor dừng ở đâu)
+    private final List<OrderExportRow> streamed = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        orderExportRepository = mock(OrderExportRepository.class);
+        // Giống ObjectMapper của Spring Boot: ngày ghi dạng ISO "2024-03-05"
+        objectMapper = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+        orderExportService = new OrderExportService(orderExportRepository, objectMapper);
+        ReflectionTestUtils.setField(orderExportService, "flushRows", 500);
+    }
+
+    private void givenRows(OrderExportRow... rows) {
+        doAnswer(invocation -> {
+            Consumer<OrderExportRow> consumer = invocation.getArgument(2);
+            for (OrderExportRow row : rows) {
+                streamed.add(row);
+                consumer.accept(row);
+            }
+            return null;
+        }).when(orderExportRepository).streamOrderRows(eq(FROM), eq(TO), any());
+    }
+
+    private static OrderExportRow row(long orderId, String fullName, String note, Long detailId) {
+        return new OrderExportRow(orderId, 4L, fullName, "a@b.vn", "0912", "Ha Noi", note,
+                LocalDate.of(2024, 3, 5), "pending", 30f, "express", "Ha Noi", null, null, "cod",
+                detailId, detailId == null ? null : 100 + detailId, 10f, 1, 10f, null);
+    }
+
+    @Test
+    void csvQuotesValuesWithCommasQuotesAndNewlines() throws IOException {
+        givenRows(row(1L, "Nguyen, \"Van\" A", "goi truoc\r\nkhi giao", 11L));
+        StringWriter writer = new StringWriter();
+
+        orderExportService.exportCsv(FROM, TO, writer);
+
+        assertThat(writer.toString()).isEqualTo(CSV_HEADER
+                + "1,4,\"Nguyen, \"\"Van\"\" A\",a@b.vn,0912,Ha Noi,\"goi truoc\r\nkhi giao\","
+                + "2024-03-05,pending,30.0,express,Ha Noi,,,cod,11,111,10.0,1,10.0,\r\n");
+    }
+
+    @Test
+    void csvPrefixesTextThatSpreadsheetsWouldRunAsAFormula() throws IOException {
+        givenRows(
+                row(1L, "=HYPERLINK(\"http://x\")", "+84 912", 11L),
+                row(2L, "@SUM(A1)", "-1", 12L),
+                row(3L, "\tTab", "Binh thuong", 13L)
+        );
+        StringWriter writer = new StringWriter();
+
+        orderExportService.exportCsv(FROM, TO, writer);
+
+        String[] lines = writer.toString().split("\r\n");
+        assertThat(lines[1]).startsWith("1,4,\"'=HYPERLINK(\"\"http://x\"\")\",a@b.vn,0912,Ha Noi,\"'+84 912\",");
+        assertThat(lines[2]).startsWith("2,4,\"'@SUM(A1)\",a@b.vn,0912,Ha Noi,\"'-1\",");
+        assertThat(lines[3]).startsWith("3,4,\"'\tTab\",a@b.vn,0912,Ha Noi,Binh thuong,");
+    }
+
+    @Test
+    void csvWritesNumbersAsIsEvenWhenNegative() throws IOException {
+        givenRows(new OrderExportRow(1L, 4L, "A", null, null, null, null, null, "pending", -5f,
+                null, null, null, null, null, null, null, null, null, null, null));
+        StringWriter writer = new StringWriter();
+
+        orderExportService.exportCsv(FROM, TO, writer);
+
+        assertThat(writer.toString()).endsWith("\r\n1,4,A,,,,,,pending,-5.0,,,,,,,,,,,\r\n");
+    }
+
+    @Test
+    void csvWithoutOrdersHasOnlyTheHeader() throws IOException {
+        givenRows();
+        StringWriter writer = new StringWriter();
+
+        orderExportService.exportCsv(FROM, TO, writer);
+
+        assertThat(writer.toString()).isEqualTo(CSV_HEADER);
+    }
+
+    @Test
+    void ndjsonGroupsConsecutiveDetailRowsIntoOneLinePerOrder() throws IOException {
+        givenRows(
+                row(1L, "A", null, 11L),
+                row(1L, "A", null, 12L),
+                // đơn hàng không có chi tiết (LEFT JOIN)
+                row(2L, "B", null, null),
+                row(3L, "C", null, 13L)
+        );
+        StringWriter writer = new StringWriter();
+
+        orderExportService.exportNdjson(FROM, TO, writer);
+
+        String[] lines = writer.toString().split("\n");
+        assertThat(lines).hasSize(3);
+        JsonNode first = objectMapper.readTree(lines[0]);
+        assertThat(first.get("id").asLong()).isEqualTo(1L);
+        assertThat(first.get("fullname").asText()).isEqualTo("A");
+        assertThat(first.get("order_date").asText()).isEqualTo("2024-03-05");
+        assertThat(first.get("order_details")).hasSize(2);
+        assertThat(first.get("order_details").get(0).get("id").asLong()).isEqualTo(11L);
+        assertThat(first.get("order_details").get(1).get("product_id").asLong()).isEqualTo(112L);
+        assertThat(objectMapper.readTree(lines[1]).get("order_details")).isEmpty();
+        JsonNode third = objectMapper.readTree(lines[2]);
+        assertThat(third.get("id").asLong()).isEqualTo(3L);
+        assertThat(third.get("order_details")).hasSize(1);
+        assertThat(writer.toString()).endsWith("\n");
+    }
+
+    @Test
+    void ndjsonWithoutOrdersWritesNothing() throws IOException {
+        givenRows();
+        StringWriter writer = new StringWriter();
+
+        orderExportService.exportNdjson(FROM, TO, writer);
+
+        assertThat(writer.toString()).isEmpty();
+    }
+
+    @Test
+    void writerIsFlushedEveryFlushRowsRows() throws IOException {
+        ReflectionTestUtils.setField(orderExportService, "flushRows", 2);
+        givenRows(row(1L, "A", null, 11L), row(2L, "B", null, 12L), row(3L, "C", null, 13L),
+                row(4L, "D", null, 14L), row(5L, "E", null, 15L));
+        int[] flushes = new int[1];
+        StringWriter writer = new StringWriter() {
+            @Override
+            public void flush() {
+                flushes[0]++;
+            }
+        };
+
+        orderExportService.exportCsv(FROM, TO, writer);
+
+        // sau dòng 2, dòng 4 và lần flush cuối
+        assertThat(flushes[0]).isEqualTo(3);
+    }
+
+    @Test
+    void clientDisconnectStopsTheCursorWithTheOriginalIOException() {
+        ReflectionTestUtils.setField(orderExportService, "flushRows", 1);
+        givenRows(row(1L, "A", null, 11L), row(2L, "B", null, 12L));
+        IOException brokenPipe = new IOException("Broken pipe");
+        Writer writer = new FilterWriter(new StringWriter()) {
+            @Override
+            public void flush() throws IOException {
+                throw brokenPipe;
+            }
+        };
+
+        assertThatThrownBy(() -> orderExportService.exportCsv(FROM, TO, writer)).isSameAs(brokenPipe);
+        assertThat(streamed).hasSize(1);
+    }
+
+    @Test
+    void flushRowsMustBePositive() {
+        ReflectionTestUtils.setField(orderExportService, "flushRows", 0);
+
+        assertThatThrownBy(() -> orderExportService.validateConfiguration())
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("order.export.flush-rows");
+    }
+}
@@ -0,0 +1,377 @@
+package com.project.shopapp.services.product;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.project.shopapp.responses.ProductListResponse;
+import com.project.shopapp.support.InMemoryRedis;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class ProductRedisServiceTest {
+    private static final PageRequest FIRST_PAGE = PageRequest.of(0, 10, Sort.by("id").ascending());
+
+    private InMemoryRedis redis;
+    private Cache<String, CachedProductList> localCache;
+    private ProductRedisService productRedisService;
+    private final AtomicInteger loads = new AtomicInteger();
+    private final List<Runnable> refreshTasks = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        redis = new InMemoryRedis();
+        localCache = Caffeine.newBuilder().build();
+        productRedisService = new ProductRedisService(
+                redis.template(), new ObjectMapper(), localCache, refreshTasks::add);
+        ReflectionTestUtils.setField(productRedisService, "softTtl", Duration.ofSeconds(60));
+        ReflectionTestUtils.setField(productRedisService, "hardTtl", Duration.ofMinutes(10));
+        ReflectionTestUtils.setField(productRedisService, "lockWait", Duration.ofMillis(100));
+    }
+
+    private Supplier<ProductListResponse> loader(int totalPages) {
+        return () -> {
+            loads.incrementAndGet();
+            return ProductListResponse.builder().products(List.of()).totalPages(totalPages).build();
+        };
+    }
+
+    private CachedProductList get(Long categoryId, Supplier<ProductListResponse> loader) throws Exception {
+        return productRedisService.getProductList("", categoryId, FIRST_PAGE, loader);
+    }
+
+    @Test
+    void clearCacheBumpsGlobalGenerationInsteadOfFlushingRedis() {
+        redis.values().put("unrelated", "kept");
+
+        productRedisService.clearCache();
+
+        assertThat(redis.values()).containsEntry("all_products:gen:global", "1");
+        assertThat(redis.values()).containsEntry("unrelated", "kept");
+        verify(redis.template(), never()).getConnectionFactory();
+        assertThat(redis.published()).anySatisfy(message ->
+                assertThat(message).containsExactly(ProductRedisService.INVALIDATION_CHANNEL, "*"));
+    }
+
+    @Test
+    void invalidateCategoryBumpsOnlyThatCategoryAndTheAllProductsList() {
+        productRedisService.invalidateCategory(5L);
+
+        assertThat(redis.values())
+                .containsEntry("all_products:gen:5", "1")
+                .containsEntry("all_products:gen:0", "1")
+                .doesNotContainKey("all_products:gen:global");
+    }
+
+    @Test
+    void invalidatingOneCategoryKeepsPagesOfOtherCategories() throws Exception {
+        get(5L, loader(1));
+        get(7L, loader(1));
+        localCache.invalidateAll();
+
+        productRedisService.invalidateCategory(5L);
+        get(5L, loader(1));
+        get(7L, loader(1));
+
+        // category 5: tải lại từ DB; category 7: vẫn đọc từ Redis
+        assertThat(loads).hasValue(3);
+    }
+
+    @Test
+    void clearCacheReloadsEveryCategory() throws Exception {
+        get(5L, loader(1));
+        get(7L, loader(1));
+        localCache.invalidateAll();
+
+        productRedisService.clearCache();
+        get(5L, loader(1));
+        get(7L, loader(1));
+
+        assertThat(loads).hasValue(4);
+    }
+
+    @Test
+    void cacheKeyContainsKeywordCategorySortPageAndSize() throws Exception {
+        productRedisService.getProductList("iphone", 2L, PageRequest.of(1, 10, Sort.by("id").ascending()), loader(1));
+
+        assertThat(redis.setKeys()).containsExactly("all_products:page:v0:g0:c2:kiphone:id.ASC:1:10");
+    }
+
+    @Test
+    void differentQueriesDoNotShareACacheSlot() throws Exception {
+        productRedisService.getProductList("iphone", 2L, FIRST_PAGE, loader(1));
+        productRedisService.getProductList("samsung", 2L, FIRST_PAGE, loader(1));
+        productRedisService.getProductList("iphone", 3L, FIRST_PAGE, loader(1));
+        productRedisService.getProductList("iphone", 2L, PageRequest.of(0, 10, Sort.by("price").descending()), loader(1));
+        productRedisService.getProductList("iphone", 2L, PageRequest.of(0, 20, Sort.by("id").ascending()), loader(1));
+
+        assertThat(redis.setKeys()).doesNotHaveDuplicates().hasSize(5);
+        assertThat(loads).hasValue(5);
+    }
+
+    @Test
+    void keywordIsTrimmedAndLowercasedBeforeBuildingTheKey() throws Exception {
+        productRedisService.getProductList("  IPhone ", 2L, FIRST_PAGE, loader(1));
+        localCache.invalidateAll();
+        productRedisService.getProductList("iphone", 2L, FIRST_PAGE, loader(1));
+
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void longOrSpecialKeywordsAreHashed() throws Exception {
+        productRedisService.getProductList("iphone 15 pro max: 256gb", null, FIRST_PAGE, loader(1));
+
+        assertThat(redis.setKeys()).singleElement().asString()
+                .matches("all_products:page:v0:g0:c0:h[0-9a-f]{32}:id\\.ASC:0:10");
+    }
+
+    @Test
+    void localCacheHitDoesNotTouchRedis() throws Exception {
+        CachedProductList first = get(5L, loader(1));
+        clearInvocations(redis.template());
+
+        CachedProductList second = get(5L, loader(1));
+
+        assertThat(second).isSameAs(first);
+        verifyNoInteractions(redis.template());
+    }
+
+    @Test
+    void invalidationMessageEvictsOnlyThatCategoryAndTheAllProductsPages() throws Exception {
+        get(5L, loader(1));
+        get(7L, loader(1));
+        get(null, loader(1));
+
+        productRedisService.onMessage(message("5"), null);
+
+        assertThat(localCache.asMap().keySet()).singleElement().asString().startsWith("c7:");
+    }
+
+    @Test
+    void invalidateAllMessageEvictsEveryLocalPage() throws Exception {
+        get(5L, loader(1));
+        get(7L, loader(1));
+
+        productRedisService.onMessage(message("*"), null);
+
+        assertThat(localCache.asMap()).isEmpty();
+    }
+
+    private static Message message(String body) {
+        return new DefaultMessage(
+                ProductRedisService.INVALIDATION_CHANNEL.getBytes(StandardCharsets.UTF_8),
+                body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void redisHitReturnsTheStoredJsonBodyWithoutCallingTheLoader() throws Exception {
+        String key = "all_products:page:v0:g0:c0:-:id.ASC:0:10";
+        long softExpiresAt = System.currentTimeMillis() + 60_000;
+        redis.values().put(key, softExpiresAt + "|{\"products\":[],\"totalPages\":3}");
+
+        CachedProductList productList = get(null, loader(1));
+
+        assertThat(loads).hasValue(0);
+        assertThat(new String(productList.getBody(), StandardCharsets.UTF_8))
+                .isEqualTo("{\"products\":[],\"totalPages\":3}");
+        assertThat(productList.getSoftExpiresAt()).isEqualTo(softExpiresAt);
+    }
+
+    @Test
+    void loadedPageIsSerializedOnceAndStoredAsTheResponseBody() throws Exception {
+        CachedProductList productList = get(null, loader(3));
+
+        String stored = redis.values().get("all_products:page:v0:g0:c0:-:id.ASC:0:10");
+        assertThat(stored).endsWith("|" + new String(productList.getBody(), StandardCharsets.UTF_8));
+        assertThat(new ObjectMapper().readTree(productList.getBody()).get("totalPages").asInt()).isEqualTo(3);
+    }
+
+    @Test
+    void etagIsAQuotedHashOfTheBody() {
+        CachedProductList first = new CachedProductList("{\"a\":1}".getBytes(StandardCharsets.UTF_8), 0L);
+        CachedProductList same = new CachedProductList("{\"a\":1}".getBytes(StandardCharsets.UTF_8), 1L);
+        CachedProductList other = new CachedProductList("{\"a\":2}".getBytes(StandardCharsets.UTF_8), 0L);
+
+        assertThat(first.getEtag()).matches("\"[0-9a-f]{32}\"");
+        assertThat(first.getEtag()).isEqualTo(same.getEtag()).isNotEqualTo(other.getEtag());
+    }
+
+    @Test
+    void concurrentMissesForTheSameKeyRunTheLoaderOnce() throws Exception {
+        CountDownLatch loaderStarted = new CountDownLatch(1);
+        CountDownLatch releaseLoader = new CountDownLatch(1);
+        Supplier<ProductListResponse> blockingLoader = () -> {
+            loaderStarted.countDown();
+            try {
+                releaseLoader.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return loader(1).get();
+        };
+        ExecutorService callers = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<CachedProductList>> results = new ArrayList<>();
+            results.add(callers.submit(() -> get(5L, blockingLoader)));
+            assertThat(loaderStarted.await(5, TimeUnit.SECONDS)).isTrue();
+            for (int i = 0; i < 3; i++) {
+                results.add(callers.submit(() -> get(5L, blockingLoader)));
+            }
+            releaseLoader.countDown();
+
+            CachedProductList first = results.get(0).get(5, TimeUnit.SECONDS);
+            for (Future<CachedProductList> result : results) {
+                assertThat(result.get(5, TimeUnit.SECONDS).getBody()).isEqualTo(first.getBody());
+            }
+        } finally {
+            callers.shutdownNow();
+        }
+        assertThat(loads).hasValue(1);
+        assertThat(redis.setKeys()).hasSize(1);
+    }
+
+    @Test
+    void lockIsReleasedAfterLoading() throws Exception {
+        get(5L, loader(1));
+
+        assertThat(redis.values().keySet()).noneMatch(key -> key.endsWith(":lock"));
+    }
+
+    @Test
+    void nodeWithoutTheLockWaitsForThePageTheLockHolderWrites() throws Exception {
+        String key = "all_products:page:v0:g0:c5:-:id.ASC:0:10";
+        redis.values().put(key + ":lock", "other-node");
+        // Node giữ lock ghi trang trong lúc node này đang chờ (lần đọc thứ 3)
+        when(redis.template().opsForValue().get(key))
+                .thenReturn(null, null, Long.MAX_VALUE + "|{\"totalPages\":4}");
+
+        CachedProductList productList = get(5L, loader(2));
+
+        assertThat(loads).hasValue(0);
+        assertThat(new String(productList.getBody(), StandardCharsets.UTF_8)).isEqualTo("{\"totalPages\":4}");
+        assertThat(redis.setKeys()).isEmpty();
+    }
+
+    @Test
+    void nodeWithoutTheLockLoadsItselfWhenNothingIsWrittenInTime() throws Exception {
+        String lockKey = "all_products:page:v0:g0:c5:-:id.ASC:0:10:lock";
+        redis.values().put(lockKey, "other-node");
+
+        long start = System.nanoTime();
+        CachedProductList productList = get(5L, loader(2));
+
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isGreaterThanOrEqualTo(Duration.ofMillis(100));
+
+        assertThat(loads).hasValue(1);
+        assertThat(new ObjectMapper().readTree(productList.getBody()).get("totalPages").asInt()).isEqualTo(2);
+        assertThat(redis.setKeys()).isEmpty();
+        assertThat(redis.values()).containsEntry(lockKey, "other-node");
+    }
+
+    @Test
+    void failedLoadReleasesTheLockAndIsNotCached() throws Exception {
+        Supplier<ProductListResponse> failingLoader = () -> {
+            throw new IllegalStateException("db down");
+        };
+
+        assertThatThrownBy(() -> get(5L, failingLoader)).hasMessage("db down");
+
+        assertThat(redis.values().keySet()).noneMatch(key -> key.endsWith(":lock"));
+        get(5L, loader(1));
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void pagesAreStoredWithTheHardTtl() throws Exception {
+        get(5L, loader(1));
+
+        assertThat(redis.ttl(redis.setKeys().get(0))).isEqualTo(Duration.ofMinutes(10));
+    }
+
+    @Test
+    void freshPageDoesNotScheduleARefresh() throws Exception {
+        get(5L, loader(1));
+        get(5L, loader(1));
+
+        assertThat(refreshTasks).isEmpty();
+    }
+
+    @Test
+    void stalePageIsServedAndRefreshedInTheBackgroundOnce() throws Exception {
+        String key = "all_products:page:v0:g0:c5:-:id.ASC:0:10";
+        redis.values().put(key, "1|{\"products\":[],\"totalPages\":1}");
+
+        CachedProductList stale = get(5L, loader(2));
+        get(5L, loader(2));
+
+        assertThat(stale.isStale()).isTrue();
+        assertThat(loads).hasValue(0);
+        assertThat(refreshTasks).hasSize(1);
+
+        refreshTasks.get(0).run();
+
+        assertThat(loads).hasValue(1);
+        assertThat(redis.values().get(key)).contains("\"totalPages\":2");
+        CachedProductList refreshed = get(5L, loader(2));
+        assertThat(refreshed.isStale()).isFalse();
+        assertThat(new ObjectMapper().readTree(refreshed.getBody()).get("totalPages").asInt()).isEqualTo(2);
+    }
+
+    @Test
+    void refreshIsSkippedWhenAnotherNodeHoldsTheLock() throws Exception {
+        String key = "all_products:page:v0:g0:c5:-:id.ASC:0:10";
+        redis.values().put(key, "1|{\"products\":[],\"totalPages\":1}");
+        get(5L, loader(2));
+        redis.values().put(key + ":lock", "other-node");
+
+        refreshTasks.get(0).run();
+
+        assertThat(loads).hasValue(0);
+        assertThat(redis.setKeys()).isEmpty();
+    }
+
+    @Test
+    void rejectedRefreshIsRetriedByALaterRequest() throws Exception {
+        AtomicInteger attempts = new AtomicInteger();
+        productRedisService = new ProductRedisService(redis.template(), new ObjectMapper(), localCache,
+                task -> {
+                    attempts.incrementAndGet();
+                    throw new RejectedExecutionException("queue full");
+                });
+        ReflectionTestUtils.setField(productRedisService, "softTtl", Duration.ofSeconds(60));
+        ReflectionTestUtils.setField(productRedisService, "hardTtl", Duration.ofMinutes(10));
+        ReflectionTestUtils.setField(productRedisService, "lockWait", Duration.ofMillis(100));
+        redis.values().put("all_products:page:v0:g0:c5:-:id.ASC:0:10", "1|{}");
+
+        get(5L, loader(1));
+        get(5L, loader(1));
+
+        assertThat(attempts).hasValue(2);
+    }
+}
@@ -0,0 +1,150 @@
+package com.project.shopapp.services.token;
+
+import com.project.shopapp.components.JwtTokenUtils;
+import com.project.shopapp.exceptions.DataNotFoundException;
+import com.project.shopapp.models.Token;
+import com.project.shopapp.models.User;
+import com.project.shopapp.services.auth.IAuthCacheService;
+import com.project.shopapp.support.InMemoryRedis;
+import com.project.shopapp.utils.HashUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RedisTokenServiceTest {
+    private static final String USER_KEY = "tokens:user:1";
+
+    private final User user = User.builder().id(1L).phoneNumber("0912345678").build();
+    private InMemoryRedis redis;
+    private JwtTokenUtils jwtTokenUtils;
+    private IAuthCacheService authCacheService;
+    private RedisTokenService redisTokenService;
+
+    @BeforeEach
+    void setUp() {
+        redis = new InMemoryRedis();
+        jwtTokenUtils = mock(JwtTokenUtils.class);
+        authCacheService = mock(IAuthCacheService.class);
+        redisTokenService = new RedisTokenService(redis.template(), jwtTokenUtils, authCacheService);
+        ReflectionTestUtils.setField(redisTokenService, "expiration", 3600);
+        ReflectionTestUtils.setField(redisTokenService, "expirationRefreshToken", 7200);
+    }
+
+    private static String accessKey(String token) {
+        return "tokens:access:" + HashUtils.sha256Hex(token);
+    }
+
+    @Test
+    void addedTokenIsStoredUnderItsHashWithTheLongestTtl() {
+        Token token = redisTokenService.addToken(user, "access", false);
+
+        assertThat(redisTokenService.isTokenActive("access")).isTrue();
+        assertThat(redis.hashes().get(accessKey("access"))).containsEntry("user_id", "1");
+        assertThat(redis.ttl(accessKey("access"))).isEqualTo(Duration.ofSeconds(7200));
+        assertThat(redis.values())
+                .containsEntry("tokens:refresh:" + HashUtils.sha256Hex(token.getRefreshToken()),
+                        HashUtils.sha256Hex("access"));
+        assertThat(redis.sortedSets().get(USER_KEY)).containsOnlyKeys(HashUtils.sha256Hex("access"));
+        assertThat(redisTokenService.findByRefreshToken(token.getRefreshToken()).getToken()).isEqualTo("access");
+    }
+
+    @Test
+    void oldestNonMobileTokenIsEvictedFirst() {
+        redisTokenService.addToken(user, "mobile", true);
+        redisTokenService.addToken(user, "web-old", false);
+        redisTokenService.addToken(user, "web-new", false);
+        Map<String, Double> scores = redis.sortedSets().get(USER_KEY);
+        scores.put(HashUtils.sha256Hex("web-old"), 1.0);
+        scores.put(HashUtils.sha256Hex("web-new"), 2.0);
+
+        redisTokenService.addToken(user, "latest", false);
+
+        assertThat(redisTokenService.isTokenActive("web-old")).isFalse();
+        assertThat(redisTokenService.isTokenActive("mobile")).isTrue();
+        assertThat(redisTokenService.isTokenActive("web-new")).isTrue();
+        assertThat(redisTokenService.isTokenActive("latest")).isTrue();
+        assertThat(scores).hasSize(3);
+        verify(authCacheService).invalidateToken("web-old");
+    }
+
+    @Test
+    void expiredTokensDoNotCountTowardsTheLimit() {
+        redisTokenService.addToken(user, "a", false);
+        redisTokenService.addToken(user, "b", false);
+        redisTokenService.addToken(user, "c", false);
+        // Redis đã tự xóa khóa của token hết hạn
+        redis.hashes().remove(accessKey("a"));
+
+        redisTokenService.addToken(user, "d", false);
+
+        assertThat(redisTokenService.isTokenActive("b")).isTrue();
+        assertThat(redisTokenService.isTokenActive("c")).isTrue();
+        assertThat(redis.sortedSets().get(USER_KEY))
+                .doesNotContainKey(HashUtils.sha256Hex("a"))
+                .hasSize(3);
+    }
+
+    @Test
+    void expiredTokensArePrunedWithAFixedNumberOfRedisCalls() {
+        redisTokenService.addToken(user, "a", false);
+        redisTokenService.addToken(user, "b", false);
+        redisTokenService.addToken(user, "c", false);
+        redis.hashes().remove(accessKey("a"));
+        redis.hashes().remove(accessKey("b"));
+        clearInvocations(redis.template(), redis.template().opsForZSet());
+
+        redisTokenService.addToken(user, "d", false);
+
+        // Không có EXISTS riêng cho từng token: tất cả đi chung một pipeline, xóa bằng một ZREM
+        verify(redis.template(), never()).hasKey(anyString());
+        verify(redis.template()).executePipelined(any(SessionCallback.class));
+        verify(redis.template().opsForZSet())
+                .remove(USER_KEY, HashUtils.sha256Hex("a"), HashUtils.sha256Hex("b"));
+        assertThat(redis.sortedSets().get(USER_KEY))
+                .containsOnlyKeys(HashUtils.sha256Hex("c"), HashUtils.sha256Hex("d"));
+    }
+
+    @Test
+    void revokingDeletesEveryKeyOfTheToken() throws Exception {
+        Token token = redisTokenService.addToken(user, "access", false);
+
+        redisTokenService.revokeToken("access");
+
+        assertThat(redisTokenService.isTokenActive("access")).isFalse();
+        assertThat(redisTokenService.findByRefreshToken(token.getRefreshToken())).isNull();
+        assertThat(redis.sortedSets().get(USER_KEY)).isEmpty();
+        verify(authCacheService).invalidateToken("access");
+        assertThatThrownBy(() -> redisTokenService.revokeToken("access"))
+                .isInstanceOf(DataNotFoundException.class);
+    }
+
+    @Test
+    void refreshRotatesBothTokens() throws Exception {
+        Token token = redisTokenService.addToken(user, "access", true);
+        when(jwtTokenUtils.generateToken(user)).thenReturn("rotated");
+
+        Token refreshed = redisTokenService.refreshToken(token.getRefreshToken(), user);
+
+        assertThat(refreshed.getToken()).isEqualTo("rotated");
+        assertThat(refreshed.isMobile()).isTrue();
+        assertThat(refreshed.getRefreshToken()).isNotEqualTo(token.getRefreshToken());
+        assertThat(redisTokenService.isTokenActive("access")).isFalse();
+        assertThat(redisTokenService.isTokenActive("rotated")).isTrue();
+        assertThatThrownBy(() -> redisTokenService.refreshToken(token.getRefreshToken(), user))
+                .isInstanceOf(DataNotFoundException.class);
+    }
+}
@@ -0,0 +1,75 @@
+package com.project.shopapp.services.token;
+
+import com.project.shopapp.repositories.TokenRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TokenPurgeServiceTest {
+    private TokenRepository tokenRepository;
+    private SimpleMeterRegistry meterRegistry;
+    private TokenPurgeService tokenPurgeService;
+
+    @BeforeEach
+    void setUp() {
+        tokenRepository = mock(TokenRepository.class);
+        meterRegistry = new SimpleMeterRegistry();
+        tokenPurgeService = new TokenPurgeService(tokenRepository, meterRegistry);
+        ReflectionTestUtils.setField(tokenPurgeService, "batchSize", 2);
+        ReflectionTestUtils.setField(tokenPurgeService, "maxBatches", 10);
+        when(tokenRepository.deleteByIds(anyList()))
+                .thenAnswer(invocation -> invocation.<List<Long>>getArgument(0).size());
+        when(tokenRepository.findRevokedTokenIds(2)).thenReturn(List.of());
+        when(tokenRepository.findExpiredTokenIds(any(LocalDateTime.class), eq(2))).thenReturn(List.of());
+    }
+
+    @Test
+    void revokedAndExpiredTokensAreDeletedInBatchesByPrimaryKey() {
+        when(tokenRepository.findRevokedTokenIds(2))
+                .thenReturn(List.of(1L, 2L), List.of(3L), List.of());
+        when(tokenRepository.findExpiredTokenIds(any(LocalDateTime.class), eq(2)))
+                .thenReturn(List.of(7L, 8L), List.of());
+
+        tokenPurgeService.purgeExpiredTokens();
+
+        verify(tokenRepository).deleteByIds(List.of(1L, 2L));
+        verify(tokenRepository).deleteByIds(List.of(3L));
+        verify(tokenRepository).deleteByIds(List.of(7L, 8L));
+        // lô 1 phần tử => hết token thu hồi, không truy vấn thêm
+        verify(tokenRepository, times(2)).findRevokedTokenIds(2);
+        verify(tokenRepository, times(2)).findExpiredTokenIds(any(LocalDateTime.class), eq(2));
+        assertThat(meterRegistry.get("shopapp.tokens.purged").counter().count()).isEqualTo(5.0);
+        assertThat(meterRegistry.get("shopapp.tokens.purge").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void eachRunStopsAfterMaxBatches() {
+        ReflectionTestUtils.setField(tokenPurgeService, "maxBatches", 3);
+        when(tokenRepository.findRevokedTokenIds(2)).thenReturn(List.of(1L, 2L));
+
+        tokenPurgeService.purgeExpiredTokens();
+
+        verify(tokenRepository, times(3)).findRevokedTokenIds(2);
+        assertThat(meterRegistry.get("shopapp.tokens.purged").counter().count()).isEqualTo(6.0);
+    }
+
+    @Test
+    void nothingToPurgeDeletesNothing() {
+        tokenPurgeService.purgeExpiredTokens();
+
+        verify(tokenRepository, times(0)).deleteByIds(anyList());
+    }
+}
@@ -0,0 +1,82 @@
+package com.project.shopapp.services.token;
+
+import com.project.shopapp.components.JwtTokenUtils;
+import com.project.shopapp.exceptions.DataNotFoundException;
+import com.project.shopapp.models.Token;
+import com.project.shopapp.models.User;
+import com.project.shopapp.repositories.TokenRepository;
+import com.project.shopapp.services.auth.IAuthCacheService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TokenServiceTest {
+    private final User user = User.builder().id(1L).phoneNumber("0912345678").build();
+    private TokenRepository tokenRepository;
+    private IAuthCacheService authCacheService;
+    private TokenService tokenService;
+
+    @BeforeEach
+    void setUp() {
+        tokenRepository = mock(TokenRepository.class);
+        authCacheService = mock(IAuthCacheService.class);
+        tokenService = new TokenService(tokenRepository, mock(JwtTokenUtils.class), authCacheService);
+        ReflectionTestUtils.setField(tokenService, "expiration", 3600);
+        ReflectionTestUtils.setField(tokenService, "expirationRefreshToken", 7200);
+        when(tokenRepository.save(any(Token.class))).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    @Test
+    void tokensOverTheLimitAreEvictedWithoutLoadingAllOfThem() {
+        Token oldest = Token.builder().id(1L).token("old").build();
+        when(tokenRepository.countByUser(user)).thenReturn(4L);
+        when(tokenRepository.findTokensToEvict(user, PageRequest.of(0, 2))).thenReturn(List.of(oldest));
+
+        Token token = tokenService.addToken(user, "new", false);
+
+        verify(tokenRepository, never()).findByUser(user);
+        verify(tokenRepository).deleteAll(List.of(oldest));
+        verify(authCacheService).invalidateToken("old");
+        assertThat(token.getToken()).isEqualTo("new");
+        assertThat(token.getRefreshToken()).isNotBlank();
+    }
+
+    @Test
+    void tokensUnderTheLimitAreKept() {
+        when(tokenRepository.countByUser(user)).thenReturn(2L);
+
+        tokenService.addToken(user, "new", true);
+
+        verify(tokenRepository, never()).findTokensToEvict(any(), any());
+    }
+
+    @Test
+    void revokedTokenIsNoLongerActive() throws Exception {
+        Token token = Token.builder().token("access").build();
+        when(tokenRepository.findByToken("access")).thenReturn(token);
+        assertThat(tokenService.isTokenActive("access")).isTrue();
+
+        tokenService.revokeToken("access");
+
+        assertThat(token.isRevoked()).isTrue();
+        assertThat(tokenService.isTokenActive("access")).isFalse();
+        verify(authCacheService).invalidateToken("access");
+    }
+
+    @Test
+    void unknownTokenCannotBeRevoked() {
+        assertThatThrownBy(() -> tokenService.revokeToken("missing")).isInstanceOf(DataNotFoundException.class);
+        assertThat(tokenService.isTokenActive("missing")).isFalse();
+    }
+}
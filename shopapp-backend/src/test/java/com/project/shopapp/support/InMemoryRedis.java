@@ -0,0 +1,201 @@
+package com.project.shopapp.support;
+
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+
+/**
+ * RedisTemplate<String, String> giả lập bằng map trong bộ nhớ, đủ cho các lệnh string/pub-sub
+ * mà cache sản phẩm dùng (get, set, setIfAbsent, increment, multiGet, hasKey, Lua nhả lock, publish)
+ * và các lệnh hash/sorted set/MULTI/pipeline mà kho token Redis dùng. TTL chỉ được ghi lại, khóa không tự hết hạn
+ */
+public class InMemoryRedis {
+    private final Map<String, String> values = new ConcurrentHashMap<>();
+    private final Map<String, Map<Object, Object>> hashes = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, Double>> sortedSets = new ConcurrentHashMap<>();
+    private final Map<String, Duration> ttls = new ConcurrentHashMap<>();
+    private final List<String[]> published = new CopyOnWriteArrayList<>();
+    private final List<String> setKeys = new CopyOnWriteArrayList<>();
+    private final RedisTemplate<String, String> template;
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public InMemoryRedis() {
+        template = mock(RedisTemplate.class);
+        ValueOperations<String, String> valueOperations = mock(ValueOperations.class);
+        lenient().when(template.opsForValue()).thenReturn(valueOperations);
+
+        lenient().when(valueOperations.get(anyString()))
+                .thenAnswer(invocation -> values.get(invocation.<String>getArgument(0)));
+        lenient().when(valueOperations.multiGet(anyList())).thenAnswer(invocation -> {
+            List<String> result = new ArrayList<>();
+            for (String key : invocation.<List<String>>getArgument(0)) {
+                result.add(values.get(key));
+            }
+            return result;
+        });
+        lenient().doAnswer(invocation -> {
+            String key = invocation.getArgument(0);
+            values.put(key, invocation.getArgument(1));
+            ttls.put(key, invocation.getArgument(2));
+            setKeys.add(key);
+            return null;
+        }).when(valueOperations).set(anyString(), anyString(), any(Duration.class));
+        lenient().when(valueOperations.setIfAbsent(anyString(), anyString(), any(Duration.class)))
+                .thenAnswer(invocation -> values.putIfAbsent(
+                        invocation.getArgument(0), invocation.getArgument(1)) == null);
+        lenient().when(valueOperations.increment(anyString())).thenAnswer(invocation -> {
+            String key = invocation.getArgument(0);
+            return Long.valueOf(values.merge(key, "1",
+                    (current, one) -> String.valueOf(Long.parseLong(current) + 1)));
+        });
+        lenient().when(template.hasKey(anyString()))
+                .thenAnswer(invocation -> exists(invocation.getArgument(0)));
+        lenient().when(template.delete(anyCollection())).thenAnswer(invocation -> {
+            long deleted = 0;
+            for (String key : invocation.<Collection<String>>getArgument(0)) {
+                boolean removed = values.remove(key) != null;
+                removed |= hashes.remove(key) != null;
+                removed |= sortedSets.remove(key) != null;
+                ttls.remove(key);
+                deleted += removed ? 1 : 0;
+            }
+            return deleted;
+        });
+        lenient().when(template.expire(anyString(), any(Duration.class))).thenAnswer(invocation -> {
+            ttls.put(invocation.getArgument(0), invocation.getArgument(1));
+            return true;
+        });
+        // MULTI/EXEC: các lệnh chạy ngay trên chính template này
+        lenient().when(template.execute(any(SessionCallback.class)))
+                .thenAnswer(invocation -> invocation.<SessionCallback<?>>getArgument(0).execute(template));
+        lenient().when(template.exec()).thenReturn(List.of());
+        // Pipeline: lệnh trả về null trong callback, kết quả được gom lại trả về một lần
+        RedisOperations<String, String> pipeline = mock(RedisOperations.class);
+        lenient().when(template.executePipelined(any(SessionCallback.class))).thenAnswer(invocation -> {
+            List<Object> results = new ArrayList<>();
+            lenient().when(pipeline.hasKey(anyString())).thenAnswer(command -> {
+                results.add(exists(command.getArgument(0)));
+                return null;
+            });
+            invocation.<SessionCallback<?>>getArgument(0).execute(pipeline);
+            return results;
+        });
+
+        HashOperations<String, Object, Object> hashOperations = mock(HashOperations.class);
+        lenient().when(template.opsForHash()).thenReturn((HashOperations) hashOperations);
+        lenient().doAnswer(invocation -> {
+            hashes.computeIfAbsent(invocation.getArgument(0), key -> new ConcurrentHashMap<>())
+                    .putAll(invocation.getArgument(1));
+            return null;
+        }).when(hashOperations).putAll(anyString(), anyMap());
+        lenient().when(hashOperations.entries(anyString())).thenAnswer(invocation ->
+                new HashMap<>(hashes.getOrDefault(invocation.<String>getArgument(0), Map.of())));
+        lenient().when(hashOperations.get(anyString(), any())).thenAnswer(invocation ->
+                hashes.getOrDefault(invocation.<String>getArgument(0), Map.of()).get(invocation.getArgument(1)));
+
+        ZSetOperations<String, String> zSetOperations = mock(ZSetOperations.class);
+        lenient().when(template.opsForZSet()).thenReturn(zSetOperations);
+        lenient().when(zSetOperations.add(anyString(), anyString(), anyDouble())).thenAnswer(invocation -> {
+            sortedSets.computeIfAbsent(invocation.getArgument(0), key -> new ConcurrentHashMap<>())
+                    .put(invocation.getArgument(1), invocation.getArgument(2));
+            return true;
+        });
+        lenient().when(zSetOperations.remove(anyString(), any(Object[].class))).thenAnswer(invocation -> {
+            Map<String, Double> members = sortedSets.get(invocation.<String>getArgument(0));
+            long removed = 0;
+            for (Object member : (Object[]) invocation.getRawArguments()[1]) {
+                removed += members != null && members.remove((String) member) != null ? 1 : 0;
+            }
+            return removed;
+        });
+        lenient().when(zSetOperations.zCard(anyString())).thenAnswer(invocation ->
+                (long) sortedSets.getOrDefault(invocation.<String>getArgument(0), Map.of()).size());
+        lenient().when(zSetOperations.range(anyString(), anyLong(), anyLong())).thenAnswer(invocation -> {
+            List<String> members = sortedSets.getOrDefault(invocation.<String>getArgument(0), Map.of())
+                    .entrySet()
+                    .stream()
+                    .sorted(Map.Entry.comparingByValue())
+                    .map(Map.Entry::getKey)
+                    .toList();
+            long start = invocation.<Long>getArgument(1);
+            long end = invocation.<Long>getArgument(2);
+            int last = (int) Math.min(end < 0 ? members.size() + end : end, members.size() - 1);
+            Set<String> range = new LinkedHashSet<>();
+            for (int i = (int) start; i <= last; i++) {
+                range.add(members.get(i));
+            }
+            return range;
+        });
+        // Script nhả lock: chỉ xóa nếu giá trị vẫn là token của mình
+        lenient().when(template.execute(any(RedisScript.class), anyList(), any(Object[].class)))
+                .thenAnswer(invocation -> {
+                    String key = invocation.<List<String>>getArgument(1).get(0);
+                    Object token = invocation.getArgument(2);
+                    return values.remove(key, token) ? 1L : 0L;
+                });
+        lenient().doAnswer(invocation -> {
+            published.add(new String[]{invocation.getArgument(0), invocation.getArgument(1)});
+            return 1L;
+        }).when(template).convertAndSend(anyString(), any());
+    }
+
+    private boolean exists(String key) {
+        return values.containsKey(key) || hashes.containsKey(key) || sortedSets.containsKey(key);
+    }
+
+    public RedisTemplate<String, String> template() {
+        return template;
+    }
+
+    public Map<String, String> values() {
+        return values;
+    }
+
+    public Duration ttl(String key) {
+        return ttls.get(key);
+    }
+
+    public Map<String, Map<Object, Object>> hashes() {
+        return hashes;
+    }
+
+    // member => score
+    public Map<String, Map<String, Double>> sortedSets() {
+        return sortedSets;
+    }
+
+    // Các khóa đã được ghi bằng SET (không tính setIfAbsent/increment)
+    public List<String> setKeys() {
+        return setKeys;
+    }
+
+    // [channel, message]
+    public List<String[]> published() {
+        return published;
+    }
+}
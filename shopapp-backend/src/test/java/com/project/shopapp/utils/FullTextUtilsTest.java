@@ -0,0 +1,52 @@
+package com.project.shopapp.utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FullTextUtilsTest {
+    @Test
+    void everyTermIsRequiredAndPrefixMatched() {
+        assertThat(FullTextUtils.toBooleanModeQuery("  iphone   pro ")).isEqualTo("+iphone* +pro*");
+    }
+
+    @Test
+    void blankKeywordDoesNotUseFullText() {
+        assertThat(FullTextUtils.toBooleanModeQuery(null)).isNull();
+        assertThat(FullTextUtils.toBooleanModeQuery("   ")).isNull();
+        assertThat(FullTextUtils.toLikePattern("")).isNull();
+    }
+
+    @Test
+    void shortTermsAndStopwordsAreLeftOutOfTheFullTextQuery() {
+        assertThat(FullTextUtils.toBooleanModeQuery("the iphone 15 pro")).isEqualTo("+iphone* +pro*");
+        assertThat(FullTextUtils.toBooleanModeQuery("The 15")).isNull();
+    }
+
+    @Test
+    void shortTermsAndStopwordsBecomeAnOrderedLikeFilter() {
+        assertThat(FullTextUtils.toLikePattern("the iphone 15 pro")).isEqualTo("%the%15%");
+        assertThat(FullTextUtils.toLikePattern("iphone pro")).isNull();
+    }
+
+    @Test
+    void likeWildcardsInTermsAreEscaped() {
+        assertThat(FullTextUtils.toLikePattern("5% z_")).isEqualTo("%5\\%%z\\_%");
+        assertThat(FullTextUtils.toLikePattern("a\\")).isEqualTo("%a\\\\%");
+    }
+
+    @Test
+    void booleanModeOperatorsSplitTermsInsteadOfBeingGluedTogether() {
+        assertThat(FullTextUtils.toBooleanModeQuery("john@exa")).isEqualTo("+john* +exa*");
+        assertThat(FullTextUtils.toBooleanModeQuery("+iphone -case (pro) \"max\"~"))
+                .isEqualTo("+iphone* +case* +pro* +max*");
+        assertThat(FullTextUtils.toBooleanModeQuery("john@example.com")).isEqualTo("+john* +example*");
+        assertThat(FullTextUtils.toLikePattern("john@example.com")).isEqualTo("%com%");
+    }
+
+    @Test
+    void keywordOfOnlyOperatorsDoesNotUseFullText() {
+        assertThat(FullTextUtils.toBooleanModeQuery("+-*@")).isNull();
+        assertThat(FullTextUtils.toLikePattern("+-*@")).isNull();
+    }
+}
@@ -0,0 +1,19 @@
+package com.project.shopapp.utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HashUtilsTest {
+    @Test
+    void sha256IsLowercaseHexLikeMysqlSha2() {
+        // SELECT SHA2('abc', 256)
+        assertThat(HashUtils.sha256Hex("abc"))
+                .isEqualTo("ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad");
+    }
+
+    @Test
+    void nullHasNoHash() {
+        assertThat(HashUtils.sha256Hex(null)).isNull();
+    }
+}